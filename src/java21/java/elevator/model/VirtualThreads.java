@@ -0,0 +1,16 @@
+package elevator.model;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual thread support. Only compiled by the java21 profile, see {@link RealTimeElevatorDriver#virtualThreadFactory()}.
+ */
+final class VirtualThreads {
+
+	private VirtualThreads() {
+	}
+	
+	static ThreadFactory factory() {
+		return Thread.ofVirtual().factory();
+	}
+}
@@ -0,0 +1,61 @@
+package elevator.benchmark;
+
+import java.time.Duration;
+import java.util.Random;
+
+import elevator.model.Constants;
+import elevator.model.ElevatorSystem;
+import elevator.model.Environment;
+import elevator.model.RandomStreams;
+import elevator.model.strategytypes.ElevatorSelectionStrategy;
+import elevator.model.strategytypes.EmbarkationStrategy;
+import elevator.model.strategytypes.FloorQueueMergeStrategy;
+import elevator.simulation.event.EventElevatorDriver;
+import elevator.simulation.event.EventQueue;
+
+/**
+ * Builds elevator systems driven by an event queue, so that no controller threads are running while benchmarking
+ */
+class Buildings {
+
+	private Buildings() {
+	}
+	
+	static Environment createEnvironment(
+			EventQueue events,
+			long seed,
+			ElevatorSelectionStrategy elevatorSelectionStrategy, 
+			EmbarkationStrategy embarkationStrategy,
+			FloorQueueMergeStrategy floorQueueMergeStrategy) {
+		
+		return new Environment(
+			events.getClock(),
+			new EventElevatorDriver(events),
+			new Constants(),
+			new RandomStreams(seed),
+			false,
+			elevatorSelectionStrategy,
+			embarkationStrategy,
+			floorQueueMergeStrategy);
+	}
+	
+	/**
+	 * Submits passengers between random floors and runs the simulation for a while, so that the elevators
+	 * are spread out over the building, moving in different directions and with stops queued
+	 */
+	static void scatterElevators(ElevatorSystem system, Environment env, EventQueue events, int numPassengers, Duration runFor) {
+		Random random = env.getRandomStreams().getTraffic();
+		int numFloors = env.getFloors().size();
+		
+		for (int i = 0; i < numPassengers; ++i) {
+			int from = random.nextInt(numFloors);
+			int to = (from + 1 + random.nextInt(numFloors - 1)) % numFloors;
+			system.submitPassenger(env.getPassengers().add(i, from, to));
+		}
+		
+		long stopAt = runFor.toNanos();
+		while (!events.isEmpty() && events.getClock().now().toNanos() < stopAt) {
+			events.runNext();
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package elevator.benchmark;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import elevator.model.Elevator;
+import elevator.model.ElevatorSystem;
+import elevator.model.Environment;
+import elevator.model.Floor;
+import elevator.model.strategytypes.ElevatorSelectionStrategy;
+import elevator.simulation.event.EventQueue;
+import elevator.strategies.elevator.EtaElevatorSelectionStrategy;
+import elevator.strategies.elevator.NearestHeadingTowardsElevatorStrategy;
+import elevator.strategies.elevator.RandomElevatorSelectionStrategy;
+import elevator.strategies.embarkation.SimpleEmbarkationStrategy;
+import elevator.strategies.queue.ByOrderFloorQueueMergeStrategy;
+
+/**
+ * Selecting the elevator for a new hall call in a building where the elevators are spread out and busy
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ElevatorSelectionBenchmark {
+
+	private static final int NUM_CALLS = 1024;
+	
+	@Param({ "NearestHeadingTowards", "Random", "Eta" })
+	String strategyName;
+	
+	@Param({ "10", "100", "500" })
+	int numFloors;
+	
+	@Param({ "1", "20", "200" })
+	int numElevators;
+	
+	private ElevatorSelectionStrategy strategy;
+	private Environment env;
+	private Floor[] departureFloors = new Floor[NUM_CALLS];
+	private int[] passengers = new int[NUM_CALLS];
+	private int call;
+	
+	@Setup
+	public void setUp() {
+		strategy = createStrategy(strategyName);
+		
+		EventQueue events = new EventQueue();
+		env = Buildings.createEnvironment(events, 1977, strategy, new SimpleEmbarkationStrategy(), new ByOrderFloorQueueMergeStrategy());
+		ElevatorSystem system = new ElevatorSystem(numElevators, numFloors, env);
+		Buildings.scatterElevators(system, env, events, numElevators * 4, Duration.ofSeconds(numFloors));
+		
+		Random random = new Random(1978);
+		for (int i = 0; i < NUM_CALLS; ++i) {
+			int from = random.nextInt(numFloors);
+			int to = (from + 1 + random.nextInt(numFloors - 1)) % numFloors;
+			departureFloors[i] = env.getFloors().get(from);
+			passengers[i] = env.getPassengers().add(i, from, to);
+		}
+	}
+	
+	private static ElevatorSelectionStrategy createStrategy(String name) {
+		switch (name) {
+		case "NearestHeadingTowards":
+			return new NearestHeadingTowardsElevatorStrategy();
+		case "Random":
+			return new RandomElevatorSelectionStrategy();
+		case "Eta":
+			return new EtaElevatorSelectionStrategy();
+		default:
+			throw new IllegalArgumentException("Unknown strategy " + name);
+		}
+	}
+	
+	@Benchmark
+	public Elevator getElevatorFor() {
+		int i = call++ & (NUM_CALLS - 1);
+		return strategy.getElevatorFor(passengers[i], departureFloors[i], env);
+	}
+}
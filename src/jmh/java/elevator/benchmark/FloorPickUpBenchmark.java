@@ -0,0 +1,124 @@
+package elevator.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import elevator.model.Elevator;
+import elevator.model.ElevatorSystem;
+import elevator.model.Environment;
+import elevator.model.Floor;
+import elevator.model.IntList;
+import elevator.model.PassengerStore;
+import elevator.model.SystemState;
+import elevator.simulation.event.EventQueue;
+import elevator.strategies.embarkation.SimpleEmbarkationStrategy;
+import elevator.strategies.queue.ByOrderFloorQueueMergeStrategy;
+
+/**
+ * An elevator stopping at a floor with a long queue of waiting passengers, of which only the ones going
+ * to one of the elevator's queued floors embark.
+ *
+ * New hall calls are all assigned to a second elevator, so the stopping elevator's floor queue stays fixed.
+ * Picking up empties part of the floor, so each invocation picks up from a batch of floors, spread over as
+ * many buildings as needed, which are restored from saved states before every iteration.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 200)
+@Measurement(iterations = 500)
+@OperationsPerInvocation(FloorPickUpBenchmark.BATCH_SIZE)
+@Fork(1)
+@State(Scope.Thread)
+public class FloorPickUpBenchmark {
+
+	// Long enough for an invocation to take well over the resolution of the timer
+	static final int BATCH_SIZE = 256;
+	
+	@Param({ "10", "100", "500" })
+	int numFloors;
+	
+	@Param({ "10", "100", "1000" })
+	int numWaiting;
+	
+	// Number of floors the stopping elevator is going to
+	@Param({ "1", "4" })
+	int numStops;
+	
+	private ElevatorSystem[] systems;
+	private SystemState[] savedStates;
+	private Floor[] floors = new Floor[BATCH_SIZE];
+	private Elevator[] stoppingElevators = new Elevator[BATCH_SIZE];
+	private IntList embarked = new IntList();
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		int numBuildings = (BATCH_SIZE + numFloors - 1) / numFloors;
+		systems = new ElevatorSystem[numBuildings];
+		savedStates = new SystemState[numBuildings];
+		Random random = new Random(1977);
+		
+		for (int building = 0; building < numBuildings; ++building) {
+			EventQueue events = new EventQueue();
+			Environment env = Buildings.createEnvironment(
+				events,
+				1977,
+				(passenger, departureFloor, e) -> e.getElevators().get(0),
+				new SimpleEmbarkationStrategy(),
+				new ByOrderFloorQueueMergeStrategy());
+			systems[building] = new ElevatorSystem(2, numFloors, env);
+			
+			Elevator stoppingElevator = env.getElevators().get(1);
+			PassengerStore passengers = env.getPassengers();
+			long id = 0;
+			for (int i = 0; i < numStops; ++i) {
+				stoppingElevator.addPassengerFromFloor(passengers.add(id++, 0, 1 + i * (numFloors - 1) / numStops), 0);
+			}
+			
+			for (int number = 0; number < numFloors && building * numFloors + number < BATCH_SIZE; ++number) {
+				Floor floor = env.getFloors().get(number);
+				for (int i = 0; i < numWaiting; ++i) {
+					floor.addPassenger(passengers.add(id++, number, (number + 1 + random.nextInt(numFloors - 1)) % numFloors));
+				}
+				floors[building * numFloors + number] = floor;
+				stoppingElevators[building * numFloors + number] = stoppingElevator;
+			}
+			savedStates[building] = systems[building].saveState();
+		}
+	}
+	
+	/**
+	 * Puts the embarked passengers back on their floors. Unlike adding them to the floors again, restoring
+	 * doesn't assign them to elevators.
+	 */
+	@Setup(Level.Iteration)
+	public void restoreFloors() {
+		for (int building = 0; building < systems.length; ++building) {
+			systems[building].restoreState(savedStates[building]);
+		}
+	}
+	
+	@Benchmark
+	public int pickUpPassengers() {
+		int numEmbarked = 0;
+		for (int i = 0; i < BATCH_SIZE; ++i) {
+			embarked.clear();
+			floors[i].pickUpPassengers(stoppingElevators[i], embarked);
+			numEmbarked += embarked.size();
+		}
+		return numEmbarked;
+	}
+}
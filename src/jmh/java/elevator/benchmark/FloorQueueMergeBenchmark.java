@@ -0,0 +1,93 @@
+package elevator.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import elevator.model.Elevator;
+import elevator.model.FloorQueue;
+import elevator.model.strategytypes.FloorQueueMergeStrategy;
+import elevator.strategies.queue.ByOrderFloorQueueMergeStrategy;
+import elevator.strategies.queue.LookFloorQueueMergeStrategy;
+
+/**
+ * Merging a new hall call into an elevator's existing floor queue, built up from the specified 
+ * number of earlier hall calls.
+ * 
+ * Merge strategies modify the queue they are given, so each invocation merges into a fresh copy
+ * of the same queue. The copy is part of the measured time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FloorQueueMergeBenchmark {
+
+	private static final int NUM_CALLS = 1024;
+	
+	@Param({ "ByOrder", "Look" })
+	String strategyName;
+	
+	@Param({ "10", "100", "500" })
+	int numFloors;
+	
+	@Param({ "0", "16", "256" })
+	int queuedCalls;
+	
+	private FloorQueueMergeStrategy strategy;
+	private FloorQueue queue;
+	private int currentFloor;
+	private int[] fromFloors = new int[NUM_CALLS];
+	private int[] toFloors = new int[NUM_CALLS];
+	private int call;
+	
+	@Setup
+	public void setUp() {
+		strategy = createStrategy(strategyName);
+		
+		Random random = new Random(1977);
+		currentFloor = random.nextInt(numFloors);
+		
+		queue = strategy.createQueue(numFloors);
+		for (int i = 0; i < queuedCalls; ++i) {
+			int from = random.nextInt(numFloors);
+			int to = (from + 1 + random.nextInt(numFloors - 1)) % numFloors;
+			queue = strategy.merge(Elevator.State.GOING_UP, currentFloor, queue, from, to);
+		}
+		
+		for (int i = 0; i < NUM_CALLS; ++i) {
+			fromFloors[i] = random.nextInt(numFloors);
+			toFloors[i] = (fromFloors[i] + 1 + random.nextInt(numFloors - 1)) % numFloors;
+		}
+	}
+	
+	private static FloorQueueMergeStrategy createStrategy(String name) {
+		switch (name) {
+		case "ByOrder":
+			return new ByOrderFloorQueueMergeStrategy();
+		case "Look":
+			return new LookFloorQueueMergeStrategy();
+		default:
+			throw new IllegalArgumentException("Unknown strategy " + name);
+		}
+	}
+	
+	@Benchmark
+	public FloorQueue merge() {
+		int i = call++ & (NUM_CALLS - 1);
+		return strategy.merge(Elevator.State.GOING_UP, currentFloor, queue.copy(), fromFloors[i], toFloors[i]);
+	}
+}
@@ -0,0 +1,40 @@
+package elevator.model;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable state of the elevators and floors at a point in time, for display, see 
+ * {@link ElevatorSystem#getView(BuildingView)}.
+ * 
+ * Consecutive views share the elevator and floor views that didn't change, so comparing them by reference 
+ * tells what to redraw.
+ */
+public final class BuildingView {
+
+	private final Duration time;
+	private final List<ElevatorView> elevators;
+	private final List<FloorView> floors;
+	
+	BuildingView(Duration time, List<ElevatorView> elevators, List<FloorView> floors) {
+		this.time = time;
+		this.elevators = Collections.unmodifiableList(elevators);
+		this.floors = Collections.unmodifiableList(floors);
+	}
+	
+	/**
+	 * Simulated time the view was taken at
+	 */
+	public Duration getTime() {
+		return time;
+	}
+	
+	public List<ElevatorView> getElevators() {
+		return elevators;
+	}
+	
+	public List<FloorView> getFloors() {
+		return floors;
+	}
+}
@@ -2,30 +2,31 @@ package elevator.model;
 
 import java.time.Duration;
 
-public class Clock {
+/**
+ * Source of simulated time
+ */
+public interface Clock {
 
-	private double factor;
-
-	// factor = 1 => real time
-	// factor < 1 => slower
-	// factor > 1 => faster
-	public Clock(double factor) {
-		if (Double.compare(0d, factor) == 0) {
-			throw new IllegalArgumentException("Factor can't be zero");
-		}
-		this.factor = factor;
-	}
+	/**
+	 * Returns the simulated time elapsed since the clock was started 
+	 */
+	Duration now();
 	
-	public void sleep(Duration dur) throws InterruptedException {
-		Thread.sleep(getRealTime(dur).toMillis());
-	}
-
-	private Duration getRealTime(Duration dur) {
-		return Duration.ofMillis((long) ((double) dur.toMillis() / factor));
+	/**
+	 * Returns the simulated time elapsed since the clock was started, in nanoseconds
+	 */
+	default long nowNanos() {
+		return now().toNanos();
 	}
 	
-	public Duration getSimulatedTime(Duration dur) {
-		return Duration.ofMillis((long) ((double) dur.toMillis() * factor));
-	}
+	/**
+	 * Blocks the calling thread for the specified amount of simulated time
+	 */
+	void sleep(Duration dur) throws InterruptedException;
 	
+	/**
+	 * Blocks the calling thread until the simulated time is reached, or not at all if it has passed. Sleeping 
+	 * until deadlines derived from the previous one keeps late wakeups from adding up.
+	 */
+	void sleepUntil(Duration time) throws InterruptedException;
 }
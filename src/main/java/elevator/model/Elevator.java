@@ -1,17 +1,20 @@
 package elevator.model;
 
-import java.util.ArrayList;
-import java.util.Iterator;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * An Elevator.
- * 
- * Contains a thread responsible for updating state
+ *
+ * The work cycle is split into steps that each take some simulated time, see {@link #step()}.
+ * An {@link ElevatorDriver} decides when the steps are performed.
  */
 public class Elevator {
 
@@ -20,205 +23,454 @@ public class Elevator {
 		GOING_DOWN,
 		STOPPED
 	}
-	
+
+	/**
+	 * Where in the work cycle the elevator is
+	 */
+	enum Phase {
+		IDLE,
+		MOVING,
+		OPENING_DOORS,
+		DISEMBARKING,
+		EMBARKING,
+		CLOSING_DOORS
+	}
+
+	// Hall calls pending while the floor queue lock is held, more wait for the lock
+	private static final int HALL_CALLS_CAPACITY = 64;
+
 	private volatile int currentFloor;
 	private volatile State state;
-	
-	private List<Passenger> passengers = new ArrayList<>();
-	private AtomicBoolean run = new AtomicBoolean(true);
-	private Thread controllerThread;
+
+	// Slots of the passengers on board, in order of embarkation
+	private IntList passengers = new IntList();
+	// Size of the passenger list, readable from other threads
+	private volatile int numPassengers;
 	private Environment env;
 	private List<Floor> floors;
 	private Logger logger = LoggerFactory.getLogger(getClass());
+	private int number;
 	private String name;
-	
-	private List<Integer> floorQueue = new ArrayList<>();
-	private Object floorQueueMonitor = new Object();
+
+	private FloorQueue floorQueue;
+	// Published after every change of the floor queue, so selection strategies can read them without locking
+	private volatile int numQueuedFloors;
+	private volatile int nextQueuedFloor = -1;
+	// Bit per floor in the floor queue, published word by word so that floors staying queued read as queued throughout
+	private AtomicLongArray queuedFloors;
+	private long[] markedFloors;
+	// Hall calls not merged into the floor queue yet, the from floor in the high and the to floor in the low half.
+	// Any thread may add calls without blocking, whichever thread holds the floor queue lock merges them, 
+	// see lockFloorQueue and unlockFloorQueue.
+	private HandoffQueue hallCalls = new HandoffQueue(HALL_CALLS_CAPACITY);
+	// Locks rather than monitors, so controllers on virtual threads don't pin their carrier threads while waiting
+	private ReentrantLock floorQueueLock = new ReentrantLock();
+	private Condition floorQueued = floorQueueLock.newCondition();
 	private volatile int destinationFloor;
-	
-	
+
+	private Phase phase = Phase.IDLE;
+	private int passengersLetOff;
+	private IntList embarkingPassengers = new IntList();
+	private int passengersTakenOn;
+
+	// Statistics, only written by the thread stepping the elevator
+	private volatile long busyNanos;
+	private volatile long numStops;
+	private volatile long numPassengersCarried;
+
 	public Elevator(Environment env, List<Floor> floors, int name) {
 		this.env = env;
 		this.floors = floors;
+		this.number = name;
 		this.name = String.valueOf(name);
+		floorQueue = env.getFloorQueueMergeStrategy().createQueue(floors.size());
+		markedFloors = new long[(floors.size() + 63) >> 6];
+		queuedFloors = new AtomicLongArray(markedFloors.length);
 		state = State.STOPPED;
 		currentFloor = 0;
-		
-		controllerThread = new Thread(this::controllerLoop, "Elevator " + name);
-		controllerThread.start();
+		destinationFloor = -1;
 	}
-	
+
 	public String getName() {
 		return name;
 	}
 	
+	/**
+	 * Index of the elevator in the building, starting at 0
+	 */
+	public int getNumber() {
+		return number;
+	}
+
 	public State getState() {
 		return state;
 	}
-	
+
 	public int getDestinationFloor() {
 		return destinationFloor;
 	}
 
-	public void stop() {
-		run.set(false);
-		controllerThread.interrupt();
-		try {
-			controllerThread.join(1000);
-		} catch (InterruptedException e) {
-		}
-	}
-	
 	public int getCurrentFloor() {
 		return currentFloor;
 	}
-	
+
 	public int getNumberOfPassengers() {
-		return passengers.size();
+		return numPassengers;
+	}
+	
+	public int getNumberOfQueuedFloors() {
+		return numQueuedFloors;
 	}
 
 	/**
-	 * Main loop of controller thread
+	 * Total simulated time spent moving, stopping and serving passengers
 	 */
-	private void controllerLoop() {
-		env.debug(logger, "Controller loop starting");
-		while (run.get()) {
-			try {
-				move(getNextFloor());
-			}
-			catch (InterruptedException e) {
-				break;
-			}
-		}
-		
-		env.debug(logger, "Controller loop exiting");
+	public Duration getBusyTime() {
+		return Duration.ofNanos(busyNanos);
+	}
+	
+	public long getNumberOfStops() {
+		return numStops;
+	}
+	
+	/**
+	 * Number of passengers that have been let off at their destination floor
+	 */
+	public long getNumberOfPassengersCarried() {
+		return numPassengersCarried;
+	}
+
+	Environment getEnvironment() {
+		return env;
 	}
 
 	/**
-	 * Moves to the specified floor 
+	 * Performs the next step of the work cycle: starting to move to the next floor, passing a floor,
+	 * opening doors, letting off or taking on a passenger or closing doors.
+	 *
+	 * Returns the simulated time the step takes, after which the next step should be performed, or null
+	 * if there currently are no floors to go to.
 	 */
-	private void move(int floor) throws InterruptedException {
-		env.debug(logger, "Going to floor {}", floor);
-		destinationFloor = floor;
-		
-		if (floor == currentFloor) {
-			arrived();
-		} else {
+	public Duration step() {
+		Duration duration = nextStep();
+		if (duration != null) {
+			busyNanos += duration.toNanos();
+		}
+		return duration;
+	}
+	
+	private Duration nextStep() {
+		Constants constants = env.getConstants();
+
+		switch (phase) {
+		case IDLE:
+			int floor = pollNextFloor();
+			if (floor == -1) {
+				return null;
+			}
+
+			env.debug(logger, "Going to floor {}", floor);
+			destinationFloor = floor;
+
+			if (floor == currentFloor) {
+				return openDoors();
+			}
 			state = floor > currentFloor ? State.GOING_UP : State.GOING_DOWN;
-			while (floor != currentFloor) {
-				env.getClock().sleep(env.getConstants().getTravelTimeBetweenFloors());
-				currentFloor += (floor > currentFloor ? 1 : -1);
+			phase = Phase.MOVING;
+			env.journal(JournalEvent.DEPART, number, currentFloor, -1);
+			return constants.getTravelTimeBetweenFloors();
+
+		case MOVING:
+			currentFloor += (destinationFloor > currentFloor ? 1 : -1);
+			if (currentFloor == destinationFloor) {
+				return openDoors();
+			}
+			return constants.getTravelTimeBetweenFloors();
+
+		case OPENING_DOORS:
+			env.journal(JournalEvent.DOORS_OPEN, number, currentFloor, -1);
+			if (passengers.size() > 0) {
+				env.debug(logger, "Letting off passengers");
+			}
+			phase = Phase.DISEMBARKING;
+			passengersLetOff = 0;
+			return nextStep();
+
+		case DISEMBARKING:
+			// Let off the next passenger going to this floor, if any
+			PassengerStore store = env.getPassengers();
+			for (int i = 0; i < passengers.size(); ++i) {
+				int passenger = passengers.get(i);
+				if (store.getDestinationFloor(passenger) == currentFloor) {
+					++passengersLetOff;
+					++numPassengersCarried;
+					passengers.remove(i);
+					numPassengers = passengers.size();
+					env.journal(JournalEvent.DISEMBARK, number, currentFloor, store.getId(passenger));
+					env.passengerArrived(passenger);
+					return constants.getPassengerDisembarkTime();
+				}
+			}
+
+			if (passengersLetOff > 0) {
+				env.debug(logger, "Let off {} passengers, now taking on passengers...", passengersLetOff);
 			}
-			arrived();
+
+			// Take on passengers
+			embarkingPassengers.clear();
+			floors.get(currentFloor).pickUpPassengers(this, embarkingPassengers);
+			passengersTakenOn = 0;
+			if (embarkingPassengers.isEmpty()) {
+				return closeDoors();
+			}
+			phase = Phase.EMBARKING;
+			return constants.getPassengerDisembarkTime();
+
+		case EMBARKING:
+			int passenger = embarkingPassengers.get(passengersTakenOn++);
+			env.passengerEmbarked(passenger);
+			env.journal(JournalEvent.EMBARK, number, currentFloor, env.getPassengers().getId(passenger));
+			passengers.add(passenger);
+			numPassengers = passengers.size();
+			if (passengersTakenOn < embarkingPassengers.size()) {
+				return constants.getPassengerDisembarkTime();
+			}
+			return closeDoors();
+
+		case CLOSING_DOORS:
+			env.journal(JournalEvent.DOORS_CLOSED, number, currentFloor, -1);
+			env.debug(logger, "Arrival procedure complete");
+			embarkingPassengers.clear();
+			destinationFloor = -1;
+			phase = Phase.IDLE;
+			return nextStep();
+
+		default:
+			throw new IllegalStateException("Unknown phase " + phase);
 		}
-		destinationFloor = -1;
 	}
 
 	/**
-	 * Returns the next floor to go to. Blocks if there currently are no floors to go to. 
+	 * Starts the arrival procedure, opening doors, letting people off and in, et.c.
 	 */
-	private Integer getNextFloor() throws InterruptedException {
-		synchronized (floorQueueMonitor) {
+	private Duration openDoors() {
+		state = State.STOPPED;
+		phase = Phase.OPENING_DOORS;
+		++numStops;
+		env.journal(JournalEvent.ARRIVE, number, currentFloor, -1);
 
+		env.debug(logger, "Arrived at floor {}. Opening doors..", currentFloor);
+		return env.getConstants().getDoorOpenCloseTime();
+	}
+
+	private Duration closeDoors() {
+		env.debug(logger, "Took on {} passengers, now closing doors...", passengersTakenOn);
+		phase = Phase.CLOSING_DOORS;
+		return env.getConstants().getDoorOpenCloseTime();
+	}
+
+	/**
+	 * Returns the next floor to go to, or -1 if there are no floors to go to
+	 */
+	private int pollNextFloor() {
+		lockFloorQueue();
+		try {
 			if (floorQueue.isEmpty()) {
-				floorQueueMonitor.wait();
+				return -1;
 			}
-			
-			return floorQueue.remove(0);
+			int floor = floorQueue.poll();
+			publishFloorQueue();
+			return floor;
+		} finally {
+			unlockFloorQueue();
 		}
 	}
-	
+
 	/**
-	 * Called when this elevator has been assigned a passenger. Updates the floor queue. 
+	 * Blocks until there is a floor to go to
 	 */
-	public void addPassengerFromFloor(Passenger passenger, int fromFloor) {
-		synchronized (floorQueueMonitor) {
-			env.debug(logger, "Queing floors {} and {} to current queue {}", fromFloor, passenger.getDestinationFloor(), floorQueue);
-			
-			floorQueue = env.getFloorQueueMergeStrategy().merge(state, currentFloor, floorQueue, fromFloor, passenger.getDestinationFloor());
-
-			env.debug(logger, "Merged queue: {}", floorQueue);
-			floorQueueMonitor.notifyAll();
+	public void awaitFloorQueued() throws InterruptedException {
+		lockFloorQueue();
+		try {
+			while (floorQueue.isEmpty()) {
+				floorQueued.await();
+				mergeHallCalls();
+			}
+		} finally {
+			unlockFloorQueue();
 		}
 	}
 
 	/**
-	 * Performs the arrival procedure, opening doors, letting people off and in, et.c.
+	 * Called when this elevator has been assigned a passenger. Doesn't block unless many hall calls are made at once: 
+	 * the hall call is merged into the floor queue right away if the queue is free, otherwise by the thread holding it.
 	 */
-	private void arrived() throws InterruptedException {
-		state = State.STOPPED;
-		
-		env.debug(logger, "Arrived at floor {}. Opening doors..", currentFloor);
-		
-		// Open doors
-		env.getClock().sleep(env.getConstants().getDoorOpenCloseTime());
-		
-		if (passengers.size() > 0) {
-			env.debug(logger, "Letting off passengers");
-			
-			int passengersLetOff = 0;
-			
-			// Let off passengers
-			Iterator<Passenger> it = passengers.iterator();
-			while (it.hasNext()) {
-				Passenger passenger = it.next();
-				if (passenger.getDestinationFloor() == currentFloor) {
-					++passengersLetOff;
-					it.remove();
-					passenger.arrived(env);
-					env.getClock().sleep(env.getConstants().getPassengerDisembarkTime());
-				}
+	public void addPassengerFromFloor(int passenger, int fromFloor) {
+		int toFloor = env.getPassengers().getDestinationFloor(passenger);
+		if (floorQueueLock.tryLock()) {
+			mergeHallCalls();
+			mergeHallCall(fromFloor, toFloor);
+			unlockFloorQueue();
+		} else if (hallCalls.offer((long) fromFloor << 32 | toFloor)) {
+			if (floorQueueLock.tryLock()) {
+				unlockFloorQueue();
 			}
-			
-			env.debug(logger, "Let off {} passengers, now taking on passengers...", passengersLetOff);
+		} else {
+			lockFloorQueue();
+			mergeHallCall(fromFloor, toFloor);
+			unlockFloorQueue();
 		}
-		
-		int passengersTakenOn = 0;
-		// Take on passengers
-		List<Passenger> pickUpPassengers = floors.get(currentFloor).pickUpPassengers(this);
-		for (Passenger passenger : pickUpPassengers) {
-			env.getClock().sleep(env.getConstants().getPassengerDisembarkTime());
-			++passengersTakenOn;
-			passengers.add(passenger);
+		env.getElevatorDriver().wakeUp(this);
+	}
+	
+	private void lockFloorQueue() {
+		floorQueueLock.lock();
+		mergeHallCalls();
+	}
+	
+	/**
+	 * Merges the hall calls added while the lock was held before releasing it. Calls added after merging 
+	 * but before releasing failed to take the lock, so they are merged by taking it again.
+	 */
+	private void unlockFloorQueue() {
+		do {
+			mergeHallCalls();
+			floorQueueLock.unlock();
+		} while (!hallCalls.isEmpty() && floorQueueLock.tryLock());
+	}
+	
+	/**
+	 * Merges the pending hall calls into the floor queue, in the order they were added. Floor queue lock must be held.
+	 */
+	private void mergeHallCalls() {
+		long call;
+		while ((call = hallCalls.poll()) != HandoffQueue.EMPTY) {
+			mergeHallCall((int) (call >>> 32), (int) call);
+		}
+	}
+	
+	private void mergeHallCall(int fromFloor, int toFloor) {
+		env.debug(logger, "Queing floors {} and {} to current queue {}", fromFloor, toFloor, floorQueue);
+		floorQueue = env.getFloorQueueMergeStrategy().merge(state, currentFloor, floorQueue, fromFloor, toFloor);
+		env.debug(logger, "Merged queue: {}", floorQueue);
+		publishFloorQueue();
+		floorQueued.signalAll();
+	}
+	
+	private void publishFloorQueue() {
+		numQueuedFloors = floorQueue.size();
+		nextQueuedFloor = floorQueue.isEmpty() ? -1 : floorQueue.peek();
+		Arrays.fill(markedFloors, 0);
+		floorQueue.markFloors(markedFloors, floors.size());
+		for (int word = 0; word < markedFloors.length; ++word) {
+			if (queuedFloors.get(word) != markedFloors[word]) {
+				queuedFloors.set(word, markedFloors[word]);
+			}
 		}
-		
-		// Close doors
-		env.debug(logger, "Took on {} passengers, now closing doors...", passengersTakenOn);
-		
-		env.getClock().sleep(env.getConstants().getDoorOpenCloseTime());
-		
-		env.debug(logger, "Arrival procedure complete");
 	}
 
+	/**
+	 * Never blocks. Hall calls not merged into the floor queue yet don't count.
+	 */
 	public boolean isGoingToFloor(int floor) {
-		return floorQueue.contains(floor);
+		return (queuedFloors.get(floor >> 6) & 1L << floor) != 0;
+	}
+
+	/**
+	 * Captures the state of the elevator between two steps. The floor queue and passenger lists are copied.
+	 */
+	ElevatorState saveState() {
+		ElevatorState saved = new ElevatorState();
+		saved.currentFloor = currentFloor;
+		saved.state = state;
+		saved.phase = phase;
+		saved.destinationFloor = destinationFloor;
+		saved.passengers = passengers.toArray();
+		saved.embarkingPassengers = embarkingPassengers.toArray();
+		saved.passengersLetOff = passengersLetOff;
+		saved.passengersTakenOn = passengersTakenOn;
+		lockFloorQueue();
+		try {
+			saved.floorQueue = floorQueue.copy();
+		} finally {
+			unlockFloorQueue();
+		}
+		saved.busyNanos = busyNanos;
+		saved.numStops = numStops;
+		saved.numPassengersCarried = numPassengersCarried;
+		return saved;
 	}
 	
+	/**
+	 * Takes over a saved state. If the floor queue was created by another merge strategy, the stops are 
+	 * handed over to a queue of the current strategy.
+	 */
+	void restoreState(ElevatorState saved) {
+		currentFloor = saved.currentFloor;
+		state = saved.state;
+		phase = saved.phase;
+		destinationFloor = saved.destinationFloor;
+		passengers.clear();
+		passengers.addAll(saved.passengers);
+		numPassengers = passengers.size();
+		embarkingPassengers.clear();
+		embarkingPassengers.addAll(saved.embarkingPassengers);
+		passengersLetOff = saved.passengersLetOff;
+		passengersTakenOn = saved.passengersTakenOn;
+		lockFloorQueue();
+		try {
+			if (saved.floorQueue.getClass() == floorQueue.getClass()) {
+				floorQueue = saved.floorQueue.copy();
+			} else {
+				int position = destinationFloor != -1 ? destinationFloor : currentFloor;
+				floorQueue = env.getFloorQueueMergeStrategy().takeOver(state, position, saved.floorQueue.copy(), floors.size());
+			}
+			publishFloorQueue();
+		} finally {
+			unlockFloorQueue();
+		}
+		busyNanos = saved.busyNanos;
+		numStops = saved.numStops;
+		numPassengersCarried = saved.numPassengersCarried;
+	}
+
+	/**
+	 * Returns the previous view if nothing it shows has changed since. Doesn't lock.
+	 */
+	ElevatorView getView(ElevatorView previous) {
+		int currentFloor = this.currentFloor;
+		int destinationFloor = this.destinationFloor;
+		int numPassengers = this.numPassengers;
+		State state = this.state;
+		if (previous != null && previous.matches(currentFloor, destinationFloor, numPassengers, state)) {
+			return previous;
+		}
+		return new ElevatorView(name, currentFloor, destinationFloor, numPassengers, state);
+	}
+
 	@Override
 	public String toString() {
 		String floorQueueStr;
-		synchronized (floorQueueMonitor) {
+		lockFloorQueue();
+		try {
 			floorQueueStr = floorQueue.toString();
+		} finally {
+			unlockFloorQueue();
 		}
-		return String.format("[Elevator %s. Num passengers = %d. Current floor = %d, State = %s, Floor queue: %s]", 
-			name, passengers.size(), currentFloor, state, floorQueueStr); 
+		return String.format("[Elevator %s. Num passengers = %d. Current floor = %d, State = %s, Floor queue: %s]",
+			name, numPassengers, currentFloor, state, floorQueueStr);
 	}
 
 	/**
 	 * Get's the current state if going up or down
-	 * 
+	 *
 	 * If stopped, check if we have a next floor queued and if so if we need to go up or down
 	 */
 	public State getStateOrProjectedState() {
 		if (state != State.STOPPED) {
 			return state;
 		}
-		int nextFloor = -1;
-		synchronized (floorQueueMonitor) {
-			if (floorQueue.size() > 0) {
-				nextFloor = floorQueue.get(0);
-			}
-		}
+		int nextFloor = nextQueuedFloor;
 		if (nextFloor == -1) {
 			return state;
 		}
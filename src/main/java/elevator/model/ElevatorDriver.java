@@ -0,0 +1,22 @@
+package elevator.model;
+
+/**
+ * Decides when an elevator performs the next step of its work cycle, see {@link Elevator#step()}.
+ */
+public interface ElevatorDriver {
+
+	/**
+	 * Starts driving the elevator
+	 */
+	void start(Elevator elevator);
+	
+	/**
+	 * Called whenever the elevator has been given new floors to go to
+	 */
+	void wakeUp(Elevator elevator);
+	
+	/**
+	 * Stops driving the elevator
+	 */
+	void stop(Elevator elevator);
+}
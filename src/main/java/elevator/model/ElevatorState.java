@@ -0,0 +1,25 @@
+package elevator.model;
+
+import java.io.Serializable;
+
+/**
+ * Everything an elevator knows at a point in simulated time, see {@link Elevator#saveState()}
+ */
+class ElevatorState implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	
+	int currentFloor;
+	Elevator.State state;
+	Elevator.Phase phase;
+	int destinationFloor;
+	int[] passengers;
+	int[] embarkingPassengers;
+	int passengersLetOff;
+	int passengersTakenOn;
+	FloorQueue floorQueue;
+	
+	long busyNanos;
+	long numStops;
+	long numPassengersCarried;
+}
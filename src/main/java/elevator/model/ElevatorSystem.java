@@ -7,12 +7,14 @@ public class ElevatorSystem {
 
 	private List<Elevator> elevators;
 	private List<Floor> floors;
+	private Environment env;
 	
 	public ElevatorSystem(int numElevators, int numFloors, Environment env) {
+		this.env = env;
 
 		floors = new ArrayList<>(numFloors);
 		for (int i = 0; i < numFloors; ++i) {
-			floors.add(new Floor(env, i));
+			floors.add(new Floor(env, i, numFloors));
 		}
 
 		elevators = new ArrayList<>(numElevators);
@@ -22,15 +24,76 @@ public class ElevatorSystem {
 		
 		env.setElevators(elevators);
 		env.setFloors(floors);
+		
+		elevators.forEach(e -> env.getElevatorDriver().start(e));
 	}
 
 	public void stop() {
-		elevators.forEach(e -> e.stop());
+		elevators.forEach(e -> env.getElevatorDriver().stop(e));
 	}
 
-	public void submitPassenger(Passenger passenger, int floor) {
-		floors.get(floor).addPassenger(passenger);
+	/**
+	 * Captures the state of the system. Must be called between elevator steps, i.e. from the thread 
+	 * driving a discrete event simulation.
+	 */
+	public SystemState saveState() {
+		SystemState saved = new SystemState();
+		saved.passengers = env.getPassengers().copy();
+		saved.waitingPassengers = new ArrayList<>(floors.size());
+		for (Floor floor : floors) {
+			saved.waitingPassengers.add(floor.getPassengers());
+		}
+		saved.elevators = new ArrayList<>(elevators.size());
+		for (Elevator elevator : elevators) {
+			saved.elevators.add(elevator.saveState());
+		}
+		env.saveCounters(saved);
+		return saved;
 	}
 	
-	
+	/**
+	 * Takes over a saved state of a system with the same number of floors and elevators. Waiting passengers 
+	 * stay with the elevators they were assigned to.
+	 */
+	public void restoreState(SystemState saved) {
+		if (saved.getNumberOfFloors() != floors.size() || saved.getNumberOfElevators() != elevators.size()) {
+			throw new IllegalArgumentException(String.format("Saved state has %d floors and %d elevators, not %d and %d", 
+				saved.getNumberOfFloors(), saved.getNumberOfElevators(), floors.size(), elevators.size()));
+		}
+		env.restorePassengers(saved.passengers.copy());
+		for (int i = 0; i < floors.size(); ++i) {
+			floors.get(i).restorePassengers(saved.waitingPassengers.get(i));
+		}
+		for (int i = 0; i < elevators.size(); ++i) {
+			elevators.get(i).restoreState(saved.elevators.get(i));
+		}
+		env.restoreCounters(saved);
+	}
+
+	/**
+	 * Captures the state of the elevators and floors for display. Unchanged parts of the previous view, if any, 
+	 * are reused. Nothing is locked, floors publish a view whenever they change once the first view was created.
+	 */
+	public BuildingView getView(BuildingView previous) {
+		List<ElevatorView> elevatorViews = new ArrayList<>(elevators.size());
+		for (int i = 0; i < elevators.size(); ++i) {
+			elevatorViews.add(elevators.get(i).getView(previous == null ? null : previous.getElevators().get(i)));
+		}
+		List<FloorView> floorViews = new ArrayList<>(floors.size());
+		for (int i = 0; i < floors.size(); ++i) {
+			floorViews.add(floors.get(i).getView());
+		}
+		return new BuildingView(env.getClock().now(), elevatorViews, floorViews);
+	}
+
+	/**
+	 * Submits a passenger of the passenger store to its departure floor
+	 */
+	public void submitPassenger(int passenger) {
+		PassengerStore passengers = env.getPassengers();
+		int floor = passengers.getDepartureFloor(passenger);
+		env.passengerSubmitted(passenger);
+		env.journal(JournalEvent.SUBMIT, -1, floor, passengers.getId(passenger));
+		floors.get(floor).addPassenger(passenger);
+	}
 }
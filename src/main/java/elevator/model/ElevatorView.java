@@ -0,0 +1,50 @@
+package elevator.model;
+
+/**
+ * Immutable state of an elevator at a point in time, for display. Taken without locking, so the fields are 
+ * each up to date but may be from slightly different moments.
+ */
+public final class ElevatorView {
+
+	private final String name;
+	private final int currentFloor;
+	private final int destinationFloor;
+	private final int numPassengers;
+	private final Elevator.State state;
+	
+	ElevatorView(String name, int currentFloor, int destinationFloor, int numPassengers, Elevator.State state) {
+		this.name = name;
+		this.currentFloor = currentFloor;
+		this.destinationFloor = destinationFloor;
+		this.numPassengers = numPassengers;
+		this.state = state;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public int getCurrentFloor() {
+		return currentFloor;
+	}
+	
+	/**
+	 * The floor the elevator is going to, or -1 if none
+	 */
+	public int getDestinationFloor() {
+		return destinationFloor;
+	}
+	
+	public int getNumberOfPassengers() {
+		return numPassengers;
+	}
+	
+	public Elevator.State getState() {
+		return state;
+	}
+	
+	boolean matches(int currentFloor, int destinationFloor, int numPassengers, Elevator.State state) {
+		return this.currentFloor == currentFloor && this.destinationFloor == destinationFloor 
+			&& this.numPassengers == numPassengers && this.state == state;
+	}
+}
@@ -1,8 +1,12 @@
 package elevator.model;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
 
 import org.slf4j.Logger;
 
@@ -16,32 +20,45 @@ public class Environment {
 	private Constants constants;
 	private List<Elevator> elevators;
 	private List<Floor> floors;
-	private Random random;
+	private PassengerStore passengers = new PassengerStore();
+	private RandomStreams randomStreams;
 	private EmbarkationStrategy embarkationStrategy;
 	private ElevatorSelectionStrategy elevatorSelectionStrategy;
 	private FloorQueueMergeStrategy floorQueueMergeStrategy;
+	private ElevatorDriver elevatorDriver;
 	private boolean debugOutput;
+	// Set when the simulation is first run, possibly after the elevator threads of a real-time run have started
+	private volatile EventJournal journal;
+	
+	private AtomicLong passengersInTransit = new AtomicLong();
+	private AtomicLong passengersSubmitted = new AtomicLong();
+	private AtomicLong passengersArrived = new AtomicLong();
+	private volatile boolean allPassengersSubmitted;
+	private CountDownLatch allPassengersArrived = new CountDownLatch(1);
+	private IntConsumer arrivalListener = passenger -> {};
 	
 	public Environment(
 		Clock clock, 
+		ElevatorDriver elevatorDriver,
 		Constants constants,
-		Random random, 
+		RandomStreams randomStreams, 
 		boolean debugOutput,
 		ElevatorSelectionStrategy elevatorSelectionStrategy, 
 		EmbarkationStrategy embarkationStrategy,
 		FloorQueueMergeStrategy floorQueueMergeStrategy) {
 		
 		this.clock = clock;
+		this.elevatorDriver = elevatorDriver;
 		this.constants = constants;
 		this.debugOutput = debugOutput;
 		this.elevatorSelectionStrategy = elevatorSelectionStrategy;
 		this.embarkationStrategy = embarkationStrategy;
 		this.floorQueueMergeStrategy = floorQueueMergeStrategy;
-		this.random = random;
+		this.randomStreams = randomStreams;
 	}
 
-	public Random getRandom() {
-		return random;
+	public RandomStreams getRandomStreams() {
+		return randomStreams;
 	}
 	
 	public boolean debugOutput() {
@@ -64,6 +81,10 @@ public class Environment {
 		return clock;
 	}
 	
+	public ElevatorDriver getElevatorDriver() {
+		return elevatorDriver;
+	}
+	
 	public Constants getConstants() {
 		return constants;
 	}
@@ -83,6 +104,122 @@ public class Environment {
 	public List<Floor> getFloors() {
 		return floors;
 	}
+	
+	/**
+	 * The passengers in the building. Floors, elevators and strategies refer to passengers by their slot in the store.
+	 */
+	public PassengerStore getPassengers() {
+		return passengers;
+	}
+	
+	void restorePassengers(PassengerStore passengers) {
+		this.passengers = passengers;
+	}
+
+	/**
+	 * Sets a listener called with the slot of each passenger arriving at the destination floor, 
+	 * possibly from several threads at once. The slot is reused once the listener returns.
+	 */
+	public void setArrivalListener(IntConsumer arrivalListener) {
+		this.arrivalListener = arrivalListener;
+	}
+	
+	void passengerSubmitted(int passenger) {
+		passengers.submitted(passenger, clock.nowNanos());
+		passengersSubmitted.incrementAndGet();
+		passengersInTransit.incrementAndGet();
+	}
+	
+	void passengerEmbarked(int passenger) {
+		passengers.embarked(passenger, clock.nowNanos());
+	}
+	
+	void passengerArrived(int passenger) {
+		passengers.arrived(passenger, clock.nowNanos());
+		arrivalListener.accept(passenger);
+		passengers.release(passenger);
+		passengersArrived.incrementAndGet();
+		if (passengersInTransit.decrementAndGet() == 0) {
+			checkAllPassengersArrived();
+		}
+	}
+	
+	/**
+	 * Called when no more passengers will be submitted
+	 */
+	public void allPassengersSubmitted() {
+		allPassengersSubmitted = true;
+		checkAllPassengersArrived();
+	}
+	
+	private void checkAllPassengersArrived() {
+		if (allPassengersSubmitted && passengersInTransit.get() == 0) {
+			allPassengersArrived.countDown();
+		}
+	}
+	
+	/**
+	 * Returns the number of passengers that have been submitted but not yet arrived 
+	 */
+	public long getNumberOfPassengersInTransit() {
+		return passengersInTransit.get();
+	}
+	
+	public long getNumberOfSubmittedPassengers() {
+		return passengersSubmitted.get();
+	}
+	
+	public long getNumberOfArrivedPassengers() {
+		return passengersArrived.get();
+	}
+	
+	void saveCounters(SystemState saved) {
+		saved.passengersSubmitted = passengersSubmitted.get();
+		saved.passengersArrived = passengersArrived.get();
+		saved.passengersInTransit = passengersInTransit.get();
+		saved.allPassengersSubmitted = allPassengersSubmitted;
+	}
+	
+	void restoreCounters(SystemState saved) {
+		passengersSubmitted.set(saved.passengersSubmitted);
+		passengersArrived.set(saved.passengersArrived);
+		passengersInTransit.set(saved.passengersInTransit);
+		allPassengersSubmitted = saved.allPassengersSubmitted;
+		checkAllPassengersArrived();
+	}
+	
+	public boolean hasAllPassengersArrived() {
+		return allPassengersArrived.getCount() == 0;
+	}
+	
+	/**
+	 * Blocks until all passengers have been submitted and have arrived. Returns false if the timeout expired first.
+	 */
+	public boolean awaitAllPassengersArrived(Duration timeout) throws InterruptedException {
+		return allPassengersArrived.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Sets the journal that events are recorded to, or null to not record events
+	 */
+	public void setJournal(EventJournal journal) {
+		this.journal = journal;
+	}
+	
+	public EventJournal getJournal() {
+		return journal;
+	}
+	
+	/**
+	 * Records an event in the journal, if there is one. Pass -1 for fields that don't apply.
+	 */
+	public void journal(JournalEvent event, int elevator, int floor, long passenger) {
+		EventJournal journal = this.journal;
+		if (journal == null) {
+			return;
+		}
+		journal.record(clock.nowNanos(), event, elevator, floor, passenger);
+	}
 
 	public void debug(Logger logger, String string, Object... arguments) {
 		if (!debugOutput) {
@@ -0,0 +1,179 @@
+package elevator.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A journal of everything that happens in a run, cheap enough to leave on for large runs.
+ * 
+ * Events are written as fixed size binary records into a preallocated buffer, without formatting 
+ * or allocating. When the buffer is full it is flushed to the journal file, or if there is no file, 
+ * the oldest events are overwritten so that the journal holds the latest events of the run.
+ * 
+ * The file starts with a magic number and a version byte, followed by records of 24 bytes: simulated 
+ * time in nanoseconds, passenger id, floor, elevator and event. Fields that don't apply are -1.
+ */
+public class EventJournal implements Closeable {
+
+	/**
+	 * Called for each event when reading a journal
+	 */
+	public interface Listener {
+		void event(long timeNanos, JournalEvent event, int elevator, int floor, long passenger);
+	}
+	
+	static final int MAGIC = 0x454c4a52; // "ELJR"
+	static final byte VERSION = 1;
+	static final int RECORD_SIZE = 24;
+	
+	private ByteBuffer buffer;
+	private FileChannel channel;
+	private boolean wrapped;
+	// Not a monitor, since elevators on virtual threads would pin their carriers while flushing to the file
+	private ReentrantLock lock = new ReentrantLock();
+	
+	/**
+	 * Creates a journal keeping the latest events in memory
+	 */
+	public EventJournal(int capacity) {
+		buffer = ByteBuffer.allocateDirect(capacity * RECORD_SIZE);
+	}
+	
+	/**
+	 * Creates a journal writing to a file, buffering the specified number of events
+	 */
+	public EventJournal(Path path, int capacity) throws IOException {
+		this(capacity);
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		
+		ByteBuffer header = ByteBuffer.allocate(5).putInt(MAGIC).put(VERSION);
+		header.flip();
+		while (header.hasRemaining()) {
+			channel.write(header);
+		}
+	}
+	
+	public void record(long timeNanos, JournalEvent event, int elevator, int floor, long passenger) {
+		lock.lock();
+		try {
+			if (!buffer.hasRemaining()) {
+				if (channel != null) {
+					flush();
+				} else {
+					buffer.clear();
+					wrapped = true;
+				}
+			}
+			
+			buffer.putLong(timeNanos)
+				.putLong(passenger)
+				.putInt(floor)
+				.putShort((short) elevator)
+				.put((byte) event.ordinal())
+				.put((byte) 0);
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Writes the buffered events to the journal file
+	 */
+	public void flush() {
+		lock.lock();
+		try {
+			if (channel == null) {
+				return;
+			}
+			try {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				buffer.clear();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Passes the events held in memory to the listener, oldest first. For journals without a file.
+	 */
+	public void forEach(Listener listener) {
+		lock.lock();
+		try {
+			ByteBuffer records = buffer.duplicate();
+			if (wrapped) {
+				records.limit(records.capacity());
+				records.position(buffer.position());
+				readRecords(records, listener);
+			}
+			records.limit(buffer.position());
+			records.position(0);
+			readRecords(records, listener);
+		} finally {
+			lock.unlock();
+		}
+	}
+	
+	/**
+	 * Passes the events of a journal file to the listener
+	 */
+	public static void read(Path path, Listener listener) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(4096 * RECORD_SIZE);
+			ByteBuffer header = ByteBuffer.allocate(5);
+			while (header.hasRemaining() && channel.read(header) != -1) {
+			}
+			header.flip();
+			if (header.remaining() < 5 || header.getInt() != MAGIC || header.get() != VERSION) {
+				throw new IllegalStateException("Not an event journal: " + path);
+			}
+			
+			while (channel.read(buffer) != -1) {
+				buffer.flip();
+				readRecords(buffer, listener);
+				buffer.compact();
+			}
+			if (buffer.position() > 0) {
+				throw new IllegalStateException("Truncated event journal " + path);
+			}
+		}
+	}
+	
+	private static void readRecords(ByteBuffer records, Listener listener) {
+		while (records.remaining() >= RECORD_SIZE) {
+			long timeNanos = records.getLong();
+			long passenger = records.getLong();
+			int floor = records.getInt();
+			int elevator = records.getShort();
+			JournalEvent event = JournalEvent.of(records.get());
+			records.get();
+			listener.event(timeNanos, event, elevator, floor, passenger);
+		}
+	}
+	
+	@Override
+	public void close() throws IOException {
+		lock.lock();
+		try {
+			if (channel != null) {
+				flush();
+				channel.close();
+				// Events recorded after closing, e.g. by elevators still winding down, are kept in memory
+				channel = null;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -1,61 +1,224 @@
 package elevator.model;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.StringJoiner;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class Floor {
 
-	private List<Passenger> waitingPassengers = new LinkedList<>();
+	// Arrivals pending while the lock is held, more wait for the lock
+	private static final int ARRIVALS_CAPACITY = 64;
+
+	// Slots of the waiting passengers by destination floor, in order of arrival. Floors above this one are going up, 
+	// below going down. The lists are created on first use and kept when emptied.
+	private IntList[] waitingPassengers;
+	// Bit per destination floor with waiting passengers, so only those are visited
+	private long[] waitingDestinations;
+	private ReentrantLock lock = new ReentrantLock();
+	// Slots of arrived passengers not yet added to the waiting passengers, added by whichever thread next holds the lock
+	private HandoffQueue arrivals = new HandoffQueue(ARRIVALS_CAPACITY);
+	// Written with the lock held, read without it
+	private volatile int numWaitingPassengers;
+	// Incremented whenever the waiting passengers change, so views are only built for changed floors
+	private int version;
+	// Built by the thread changing the floor before it releases it, once a view has been asked for. Null until then.
+	private volatile FloorView view;
 	private Environment env;
 	private int floor;
 	
-	public Floor(Environment env, int floor) {
+	public Floor(Environment env, int floor, int numFloors) {
 		this.env = env;
 		this.floor = floor;
+		waitingPassengers = new IntList[numFloors];
+		waitingDestinations = new long[(numFloors + 63) >> 6];
 	}
 	
 	public int getFloor() {
 		return floor;
 	}
 	
-	public void addPassenger(Passenger passenger) {
-		synchronized (waitingPassengers) {
-			waitingPassengers.add(passenger);
+	/**
+	 * Doesn't block unless many passengers are arriving at once: the passenger is added to the waiting passengers 
+	 * right away if they are free, otherwise by the thread holding them.
+	 */
+	public void addPassenger(int passenger) {
+		if (lock.tryLock()) {
+			addArrivals();
+			addWaiting(passenger);
+			unlockFloor();
+		} else if (arrivals.offer(passenger)) {
+			if (lock.tryLock()) {
+				unlockFloor();
+			}
+		} else {
+			lockFloor();
+			addWaiting(passenger);
+			unlockFloor();
 		}
 		
 		Elevator elevator = env.getElevatorSelectionStrategy().getElevatorFor(passenger, this, env);
+		env.journal(JournalEvent.DISPATCH, elevator.getNumber(), floor, env.getPassengers().getId(passenger));
 		elevator.addPassengerFromFloor(passenger, floor);
 	}
 	
-	public List<Passenger> getPassengers() {
-		synchronized (waitingPassengers) {
-			return new ArrayList<>(waitingPassengers);
+	private void lockFloor() {
+		lock.lock();
+		addArrivals();
+	}
+	
+	/**
+	 * Adds the passengers that arrived while the lock was held before releasing it, the same way as 
+	 * the floor queue of an elevator, and publishes a new view if the waiting passengers changed.
+	 */
+	private void unlockFloor() {
+		do {
+			addArrivals();
+			FloorView current = view;
+			if (current != null && current.getVersion() != version) {
+				view = createView();
+			}
+			lock.unlock();
+		} while (!arrivals.isEmpty() && lock.tryLock());
+	}
+	
+	private void addArrivals() {
+		long passenger;
+		while ((passenger = arrivals.poll()) != HandoffQueue.EMPTY) {
+			addWaiting((int) passenger);
+		}
+	}
+	
+	private void addWaiting(int passenger) {
+		int destination = env.getPassengers().getDestinationFloor(passenger);
+		IntList waiting = waitingPassengers[destination];
+		if (waiting == null) {
+			waiting = new IntList();
+			waitingPassengers[destination] = waiting;
+		}
+		waiting.add(passenger);
+		waitingDestinations[destination >> 6] |= 1L << destination;
+		++numWaitingPassengers;
+		++version;
+	}
+	
+	/**
+	 * Returns the slots of the waiting passengers, grouped by destination floor
+	 */
+	public int[] getPassengers() {
+		lockFloor();
+		try {
+			IntList passengers = new IntList(Math.max(1, numWaitingPassengers));
+			for (int word = 0; word < waitingDestinations.length; ++word) {
+				for (long bits = waitingDestinations[word]; bits != 0; bits &= bits - 1) {
+					passengers.addAll(waitingPassengers[(word << 6) + Long.numberOfTrailingZeros(bits)]);
+				}
+			}
+			return passengers.toArray();
+		} finally {
+			unlockFloor();
+		}
+	}
+	
+	/**
+	 * Returns the view published when the floor last changed, the same view as long as it doesn't change. 
+	 * Only the first call locks the floor, to create the first view.
+	 */
+	FloorView getView() {
+		FloorView current = view;
+		if (current != null) {
+			return current;
+		}
+		lockFloor();
+		try {
+			if (view == null) {
+				view = createView();
+			}
+			return view;
+		} finally {
+			unlockFloor();
+		}
+	}
+	
+	/**
+	 * Copies the waiting passengers. Floor lock must be held.
+	 */
+	private FloorView createView() {
+		int[] destinationFloors = new int[numWaitingPassengers];
+		int i = 0;
+		for (int word = 0; word < waitingDestinations.length; ++word) {
+			for (long bits = waitingDestinations[word]; bits != 0; bits &= bits - 1) {
+				int destination = (word << 6) + Long.numberOfTrailingZeros(bits);
+				for (int j = waitingPassengers[destination].size(); j > 0; --j) {
+					destinationFloors[i++] = destination;
+				}
+			}
+		}
+		return new FloorView(getName(), version, destinationFloors);
+	}
+	
+	/**
+	 * Never blocks. Passengers arriving while another thread holds the floor are counted once it releases it.
+	 */
+	public int getNumberOfWaitingPassengers() {
+		return numWaitingPassengers;
+	}
+	
+	/**
+	 * Puts back passengers waiting in a saved state, without assigning them to elevators again
+	 */
+	void restorePassengers(int[] passengers) {
+		lockFloor();
+		try {
+			for (IntList waiting : waitingPassengers) {
+				if (waiting != null) {
+					waiting.clear();
+				}
+			}
+			Arrays.fill(waitingDestinations, 0);
+			numWaitingPassengers = 0;
+			for (int passenger : passengers) {
+				addWaiting(passenger);
+			}
+			++version;
+		} finally {
+			unlockFloor();
 		}
 	}
 	
 	/**
-	 * Returns a list of passengers that should embark on this elevator 
+	 * Moves the slots of the passengers that should embark on this elevator to the end of the list.
+	 * 
+	 * The embarkation strategy is consulted once per destination floor that has waiting passengers, 
+	 * rather than once per passenger.
 	 */
-	public List<Passenger> pickUpPassengers(Elevator elevator) {
-		List<Passenger> embarking = new ArrayList<>();
-		synchronized (waitingPassengers) {
-			Iterator<Passenger> it = waitingPassengers.iterator();
-			while (it.hasNext()) {
-				Passenger passenger = it.next();
-				if (env.getEmbarkationStrategy().shouldPassengerEmbark(passenger, this, elevator)) {
-					it.remove();
-					embarking.add(passenger);
+	public void pickUpPassengers(Elevator elevator, IntList embarking) {
+		lockFloor();
+		try {
+			for (int word = 0; word < waitingDestinations.length; ++word) {
+				for (long bits = waitingDestinations[word]; bits != 0; bits &= bits - 1) {
+					int destination = (word << 6) + Long.numberOfTrailingZeros(bits);
+					if (env.getEmbarkationStrategy().shouldPassengersEmbark(destination, this, elevator)) {
+						IntList waiting = waitingPassengers[destination];
+						embarking.addAll(waiting);
+						numWaitingPassengers -= waiting.size();
+						waiting.clear();
+						waitingDestinations[word] &= ~(1L << destination);
+						++version;
+					}
 				}
 			}
+		} finally {
+			unlockFloor();
 		}
-		return embarking;
 	}
 	
 	@Override
 	public String toString() {
-		return String.format("[Floor %d. Passengers waiting: %s]", floor, waitingPassengers);
+		StringJoiner names = new StringJoiner(", ", "[", "]");
+		for (int passenger : getPassengers()) {
+			names.add(env.getPassengers().getName(passenger) + " => " + env.getPassengers().getDestinationFloor(passenger));
+		}
+		return String.format("[Floor %d. Passengers waiting: %s]", floor, names);
 	}
 
 	public String getName() {
@@ -0,0 +1,44 @@
+package elevator.model;
+
+/**
+ * An elevator's queue of floors to stop at. The order in which floors are visited is decided by 
+ * the implementation, which is created and updated by the floor queue merge strategy.
+ * 
+ * Implementations need not be thread safe, the elevator guards its queue with its floor queue lock. Other threads
+ * ask the elevator which floors are queued, see {@link #markFloors(long[], int)}.
+ */
+public interface FloorQueue {
+
+	int size();
+	
+	boolean isEmpty();
+	
+	/**
+	 * Returns true if the elevator will stop at the floor
+	 */
+	boolean contains(int floor);
+	
+	/**
+	 * Sets the bit of every floor contained in the queue, floor n being bit n % 64 of word n / 64. Called 
+	 * after every change of the queue, so implementations should override it with something faster.
+	 */
+	default void markFloors(long[] bits, int numFloors) {
+		for (int floor = 0; floor < numFloors; ++floor) {
+			if (contains(floor)) {
+				bits[floor >> 6] |= 1L << floor;
+			}
+		}
+	}
+	
+	/**
+	 * Returns the next floor to go to without removing it
+	 */
+	int peek();
+	
+	/**
+	 * Removes and returns the next floor to go to. The elevator goes there before polling again. 
+	 */
+	int poll();
+	
+	FloorQueue copy();
+}
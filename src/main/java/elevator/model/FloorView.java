@@ -0,0 +1,36 @@
+package elevator.model;
+
+/**
+ * Immutable state of the passengers waiting on a floor at a point in time, for display
+ */
+public final class FloorView {
+
+	private final String name;
+	private final int version;
+	private final int[] destinationFloors;
+	
+	FloorView(String name, int version, int[] destinationFloors) {
+		this.name = name;
+		this.version = version;
+		this.destinationFloors = destinationFloors;
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public int getNumberOfWaitingPassengers() {
+		return destinationFloors.length;
+	}
+	
+	/**
+	 * Destination floor of the waiting passenger with the index. Passengers are grouped by destination floor.
+	 */
+	public int getDestinationFloor(int passenger) {
+		return destinationFloors[passenger];
+	}
+	
+	int getVersion() {
+		return version;
+	}
+}
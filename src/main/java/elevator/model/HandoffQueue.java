@@ -0,0 +1,82 @@
+package elevator.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A bounded queue of non-negative longs that any thread may add to without blocking or allocating,
+ * and that the thread holding the owner's lock takes from, in the order they were added.
+ *
+ * Each slot has a sequence number telling whether it is free for the value at a position or holds it,
+ * so adding claims a position and publishes the value by the sequence number of its slot.
+ */
+class HandoffQueue {
+
+	static final long EMPTY = -1;
+
+	private long[] values;
+	private AtomicIntegerArray sequences;
+	private int mask;
+	// Next position to add at, claimed by adding threads
+	private AtomicInteger tail = new AtomicInteger();
+	// Next position to take from, only written by the thread holding the owner's lock
+	private volatile int head;
+
+	/**
+	 * The capacity must be a power of two
+	 */
+	HandoffQueue(int capacity) {
+		if (Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+		}
+		values = new long[capacity];
+		sequences = new AtomicIntegerArray(capacity);
+		for (int i = 0; i < capacity; ++i) {
+			sequences.set(i, i);
+		}
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Returns false without adding the value if the queue is full
+	 */
+	boolean offer(long value) {
+		while (true) {
+			int position = tail.get();
+			int index = position & mask;
+			int free = sequences.get(index) - position;
+			if (free < 0) {
+				return false;
+			}
+			if (free == 0 && tail.compareAndSet(position, position + 1)) {
+				values[index] = value;
+				sequences.set(index, position + 1);
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Returns the next value, or EMPTY if there is none. Only the thread holding the owner's lock may take values.
+	 */
+	long poll() {
+		int position = head;
+		int index = position & mask;
+		if (sequences.get(index) != position + 1) {
+			return EMPTY;
+		}
+		long value = values[index];
+		sequences.set(index, position + mask + 1);
+		head = position + 1;
+		return value;
+	}
+
+	/**
+	 * Returns whether there is no value to take. A value still being added counts as missing,
+	 * the thread adding it checks the owner's lock afterwards.
+	 */
+	boolean isEmpty() {
+		int position = head;
+		return sequences.get(position & mask) != position + 1;
+	}
+}
@@ -0,0 +1,82 @@
+package elevator.model;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of ints, used for queues of passengers so that queuing a passenger doesn't box it.
+ * The backing array is kept when the list is cleared. Not thread safe.
+ */
+public class IntList {
+
+	private int[] values;
+	private int size;
+
+	public IntList() {
+		this(8);
+	}
+
+	public IntList(int capacity) {
+		values = new int[capacity];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int get(int index) {
+		if (index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+		}
+		return values[index];
+	}
+
+	public void add(int value) {
+		if (size == values.length) {
+			values = Arrays.copyOf(values, values.length * 2);
+		}
+		values[size++] = value;
+	}
+
+	public void addAll(IntList other) {
+		addAll(other.values, other.size);
+	}
+
+	public void addAll(int[] other) {
+		addAll(other, other.length);
+	}
+
+	private void addAll(int[] other, int length) {
+		if (size + length > values.length) {
+			values = Arrays.copyOf(values, Math.max(values.length * 2, size + length));
+		}
+		System.arraycopy(other, 0, values, size, length);
+		size += length;
+	}
+
+	/**
+	 * Removes the value at the index, keeping the order of the rest
+	 */
+	public int remove(int index) {
+		int value = get(index);
+		System.arraycopy(values, index + 1, values, index, size - index - 1);
+		--size;
+		return value;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	public int[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(toArray());
+	}
+}
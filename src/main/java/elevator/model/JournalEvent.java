@@ -0,0 +1,38 @@
+package elevator.model;
+
+/**
+ * Kinds of events recorded in the {@link EventJournal}
+ */
+public enum JournalEvent {
+	
+	/**
+	 * A passenger showed up at a floor
+	 */
+	SUBMIT,
+	
+	/**
+	 * The elevator selection strategy assigned a passenger to an elevator
+	 */
+	DISPATCH,
+	
+	/**
+	 * An elevator left a floor
+	 */
+	DEPART,
+	
+	/**
+	 * An elevator stopped at a floor
+	 */
+	ARRIVE,
+	
+	DOORS_OPEN,
+	DISEMBARK,
+	EMBARK,
+	DOORS_CLOSED;
+	
+	private static final JournalEvent[] VALUES = values();
+	
+	static JournalEvent of(int ordinal) {
+		return VALUES[ordinal];
+	}
+}
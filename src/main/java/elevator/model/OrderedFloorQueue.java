@@ -0,0 +1,163 @@
+package elevator.model;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Floor queue visited in the order floors were put in the queue.
+ * 
+ * Floors are stored unboxed in a growable ring buffer, so taking the next floor is O(1). The number
+ * of times each floor occurs in the queue is kept per floor, making membership checks O(1) as well.
+ * A floor may be queued more than once.
+ * 
+ * Not thread safe, the elevator guards its queue with its floor queue lock.
+ */
+public class OrderedFloorQueue implements FloorQueue, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private int[] floors;
+	private int head;
+	private int size;
+	private int[] occurrences;
+	
+	public OrderedFloorQueue(int numFloors) {
+		floors = new int[8];
+		occurrences = new int[numFloors];
+	}
+	
+	public OrderedFloorQueue(OrderedFloorQueue copy) {
+		floors = Arrays.copyOf(copy.floors, copy.floors.length);
+		head = copy.head;
+		size = copy.size;
+		occurrences = Arrays.copyOf(copy.occurrences, copy.occurrences.length);
+	}
+	
+	@Override
+	public int size() {
+		return size;
+	}
+	
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+	
+	@Override
+	public boolean contains(int floor) {
+		return occurrences[floor] > 0;
+	}
+	
+	@Override
+	public void markFloors(long[] bits, int numFloors) {
+		for (int i = 0; i < size; ++i) {
+			int floor = floors[physicalIndex(i)];
+			bits[floor >> 6] |= 1L << floor;
+		}
+	}
+	
+	/**
+	 * Returns the floor at the specified position, 0 being the next floor to go to
+	 */
+	public int get(int index) {
+		checkIndex(index, size);
+		return floors[physicalIndex(index)];
+	}
+	
+	/**
+	 * Returns the position of the first occurrence of the floor, or -1 if it's not queued
+	 */
+	public int indexOf(int floor) {
+		if (!contains(floor)) {
+			return -1;
+		}
+		for (int i = 0; i < size; ++i) {
+			if (floors[physicalIndex(i)] == floor) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	@Override
+	public int peek() {
+		return get(0);
+	}
+	
+	@Override
+	public int poll() {
+		int floor = peek();
+		head = physicalIndex(1);
+		--size;
+		--occurrences[floor];
+		return floor;
+	}
+	
+	/**
+	 * Adds the floor last in the queue
+	 */
+	public void add(int floor) {
+		insert(size, floor);
+	}
+	
+	/**
+	 * Inserts the floor at the specified position, shifting later floors back
+	 */
+	public void insert(int index, int floor) {
+		checkIndex(index, size + 1);
+		if (size == floors.length) {
+			grow();
+		}
+		for (int i = size; i > index; --i) {
+			floors[physicalIndex(i)] = floors[physicalIndex(i - 1)];
+		}
+		floors[physicalIndex(index)] = floor;
+		++size;
+		++occurrences[floor];
+	}
+	
+	@Override
+	public OrderedFloorQueue copy() {
+		return new OrderedFloorQueue(this);
+	}
+	
+	public void clear() {
+		for (int i = 0; i < size; ++i) {
+			--occurrences[floors[physicalIndex(i)]];
+		}
+		head = 0;
+		size = 0;
+	}
+	
+	private int physicalIndex(int index) {
+		int idx = head + index;
+		return idx < floors.length ? idx : idx - floors.length;
+	}
+	
+	private void grow() {
+		int[] grown = new int[floors.length * 2];
+		for (int i = 0; i < size; ++i) {
+			grown[i] = floors[physicalIndex(i)];
+		}
+		floors = grown;
+		head = 0;
+	}
+	
+	private static void checkIndex(int index, int length) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < size; ++i) {
+			if (i > 0) {
+				sb.append(", ");
+			}
+			sb.append(floors[physicalIndex(i)]);
+		}
+		return sb.append(']').toString();
+	}
+}
@@ -0,0 +1,201 @@
+package elevator.model;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The passengers of a simulation, stored column by column in primitive arrays. Floors and elevators refer
+ * to passengers by slot, so queuing, carrying and timing a passenger doesn't allocate.
+ *
+ * The slot of an arrived passenger is reused once the arrival listener has been called, so the store only
+ * grows with the number of passengers in the building at once, not with the number of trips. The arrays
+ * are split into pages that never move, so a slot handed to another thread, through a floor or a hall call,
+ * can be read there without locking the store. Only adding and releasing slots lock.
+ */
+public class PassengerStore implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int PAGE_BITS = 10;
+	private static final int PAGE_SIZE = 1 << PAGE_BITS;
+	private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+	private static class Page implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		final long[] ids = new long[PAGE_SIZE];
+		final int[] departureFloors = new int[PAGE_SIZE];
+		final int[] destinationFloors = new int[PAGE_SIZE];
+		final long[] submitNanos = new long[PAGE_SIZE];
+		final long[] embarkNanos = new long[PAGE_SIZE];
+		final long[] arrivalNanos = new long[PAGE_SIZE];
+
+		Page copy() {
+			Page copy = new Page();
+			System.arraycopy(ids, 0, copy.ids, 0, PAGE_SIZE);
+			System.arraycopy(departureFloors, 0, copy.departureFloors, 0, PAGE_SIZE);
+			System.arraycopy(destinationFloors, 0, copy.destinationFloors, 0, PAGE_SIZE);
+			System.arraycopy(submitNanos, 0, copy.submitNanos, 0, PAGE_SIZE);
+			System.arraycopy(embarkNanos, 0, copy.embarkNanos, 0, PAGE_SIZE);
+			System.arraycopy(arrivalNanos, 0, copy.arrivalNanos, 0, PAGE_SIZE);
+			return copy;
+		}
+	}
+
+	private volatile Page[] pages = new Page[0];
+
+	// Guarded by lock
+	private ReentrantLock lock = new ReentrantLock();
+	private int numSlots;
+	private int[] freeSlots = new int[16];
+	private int numFreeSlots;
+
+	/**
+	 * Adds a passenger and returns its slot
+	 */
+	public int add(long id, int departureFloor, int destinationFloor) {
+		int slot;
+		lock.lock();
+		try {
+			if (numFreeSlots > 0) {
+				slot = freeSlots[--numFreeSlots];
+			} else {
+				slot = numSlots++;
+				if (slot >> PAGE_BITS == pages.length) {
+					Page[] grown = Arrays.copyOf(pages, pages.length + 1);
+					grown[pages.length] = new Page();
+					pages = grown;
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+
+		Page page = page(slot);
+		int i = slot & PAGE_MASK;
+		page.ids[i] = id;
+		page.departureFloors[i] = departureFloor;
+		page.destinationFloors[i] = destinationFloor;
+		page.submitNanos[i] = 0;
+		page.embarkNanos[i] = 0;
+		page.arrivalNanos[i] = 0;
+		return slot;
+	}
+
+	/**
+	 * Frees the slot of an arrived passenger for reuse
+	 */
+	void release(int slot) {
+		lock.lock();
+		try {
+			if (numFreeSlots == freeSlots.length) {
+				freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+			}
+			freeSlots[numFreeSlots++] = slot;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Number of passengers in the store, i.e. submitted and not yet arrived
+	 */
+	public int size() {
+		lock.lock();
+		try {
+			return numSlots - numFreeSlots;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private Page page(int slot) {
+		return pages[slot >> PAGE_BITS];
+	}
+
+	public long getId(int slot) {
+		return page(slot).ids[slot & PAGE_MASK];
+	}
+
+	public String getName(int slot) {
+		return "P" + getId(slot);
+	}
+
+	public int getDepartureFloor(int slot) {
+		return page(slot).departureFloors[slot & PAGE_MASK];
+	}
+
+	public int getDestinationFloor(int slot) {
+		return page(slot).destinationFloors[slot & PAGE_MASK];
+	}
+
+	/**
+	 * Simulated time at which the passenger was submitted to the departure floor
+	 */
+	public long getSubmitNanos(int slot) {
+		return page(slot).submitNanos[slot & PAGE_MASK];
+	}
+
+	/**
+	 * Simulated time at which the passenger boarded an elevator
+	 */
+	public long getEmbarkNanos(int slot) {
+		return page(slot).embarkNanos[slot & PAGE_MASK];
+	}
+
+	/**
+	 * Simulated time at which the passenger arrived at the destination floor
+	 */
+	public long getArrivalNanos(int slot) {
+		return page(slot).arrivalNanos[slot & PAGE_MASK];
+	}
+
+	/**
+	 * Time from being submitted to the departure floor until boarding an elevator
+	 */
+	public long getWaitNanos(int slot) {
+		return getEmbarkNanos(slot) - getSubmitNanos(slot);
+	}
+
+	/**
+	 * Time from boarding an elevator until arriving at the destination floor
+	 */
+	public long getRideNanos(int slot) {
+		return getArrivalNanos(slot) - getEmbarkNanos(slot);
+	}
+
+	void submitted(int slot, long nanos) {
+		page(slot).submitNanos[slot & PAGE_MASK] = nanos;
+	}
+
+	void embarked(int slot, long nanos) {
+		page(slot).embarkNanos[slot & PAGE_MASK] = nanos;
+	}
+
+	void arrived(int slot, long nanos) {
+		page(slot).arrivalNanos[slot & PAGE_MASK] = nanos;
+	}
+
+	/**
+	 * Copies the store, e.g. to save the state of a simulation. Must not be called while passengers are added.
+	 */
+	PassengerStore copy() {
+		PassengerStore copy = new PassengerStore();
+		lock.lock();
+		try {
+			Page[] pages = this.pages;
+			copy.pages = new Page[pages.length];
+			for (int i = 0; i < pages.length; ++i) {
+				copy.pages[i] = pages[i].copy();
+			}
+			copy.numSlots = numSlots;
+			copy.freeSlots = Arrays.copyOf(freeSlots, freeSlots.length);
+			copy.numFreeSlots = numFreeSlots;
+		} finally {
+			lock.unlock();
+		}
+		return copy;
+	}
+}
@@ -0,0 +1,58 @@
+package elevator.model;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Independent random generators for the parts of a simulation, all derived from one seed: the traffic,
+ * the dispatching of passengers to elevators and each elevator's own strategy decisions.
+ *
+ * A part draws only from its own stream, so the numbers it gets don't depend on when the other parts draw.
+ * With elevators on their own threads a run is then reproducible from its seed, and no two threads
+ * contend for a generator.
+ *
+ * The seeds are drawn from a SplittableRandom. The streams are plain Random, which is what arrival
+ * processes take and what snapshots can serialize.
+ */
+public class RandomStreams implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Random traffic;
+	private final Random dispatch;
+	private final long elevatorSeed;
+	private final Map<Integer, Random> elevators = new ConcurrentHashMap<>();
+
+	public RandomStreams(long seed) {
+		// New streams must be added last, so existing streams keep their numbers for a seed
+		SplittableRandom seeds = new SplittableRandom(seed);
+		traffic = new Random(seeds.nextLong());
+		dispatch = new Random(seeds.nextLong());
+		elevatorSeed = seeds.nextLong();
+	}
+
+	/**
+	 * Arrival times and floors of passengers
+	 */
+	public Random getTraffic() {
+		return traffic;
+	}
+
+	/**
+	 * Choices of the elevator selection strategy
+	 */
+	public Random getDispatch() {
+		return dispatch;
+	}
+
+	/**
+	 * Choices of the embarkation and floor queue merge strategies for the elevator. The stream depends only on
+	 * the elevator number, not on the order elevators ask for their streams.
+	 */
+	public Random getElevator(int number) {
+		return elevators.computeIfAbsent(number, n -> new Random(new SplittableRandom(elevatorSeed + n).nextLong()));
+	}
+}
@@ -0,0 +1,77 @@
+package elevator.model;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A clock running in (possibly accelerated) real time, with nanosecond resolution.
+ * 
+ * Sleeping threads park until shortly before their deadline and spin the rest of the way, since parking 
+ * alone oversleeps by tens of microseconds, which is seconds of simulated time at high factors. 
+ * A spinning virtual thread holds on to its carrier thread, so clocks for virtual threads should only park, 
+ * with a spin tail of zero.
+ */
+public class RealTimeClock implements Clock {
+
+	// Parking for less than this oversleeps too much to be worth it
+	public static final Duration DEFAULT_SPIN_TAIL = Duration.ofNanos(50_000);
+	
+	private double factor;
+	private long spinNanos;
+	private long origin = System.nanoTime();
+
+	// factor = 1 => real time
+	// factor < 1 => slower
+	// factor > 1 => faster
+	public RealTimeClock(double factor) {
+		this(factor, DEFAULT_SPIN_TAIL);
+	}
+	
+	/**
+	 * Sleeping threads spin instead of parking for the last spinTail before their deadline
+	 */
+	public RealTimeClock(double factor, Duration spinTail) {
+		if (Double.compare(0d, factor) == 0) {
+			throw new IllegalArgumentException("Factor can't be zero");
+		}
+		if (spinTail.isNegative()) {
+			throw new IllegalArgumentException("Negative spin tail: " + spinTail);
+		}
+		this.factor = factor;
+		this.spinNanos = spinTail.toNanos();
+	}
+	
+	@Override
+	public Duration now() {
+		return Duration.ofNanos(nowNanos());
+	}
+	
+	@Override
+	public long nowNanos() {
+		return (long) ((System.nanoTime() - origin) * factor);
+	}
+	
+	@Override
+	public void sleep(Duration dur) throws InterruptedException {
+		parkUntil(System.nanoTime() + (long) (dur.toNanos() / factor));
+	}
+	
+	@Override
+	public void sleepUntil(Duration time) throws InterruptedException {
+		parkUntil(origin + (long) (time.toNanos() / factor));
+	}
+	
+	private void parkUntil(long deadline) throws InterruptedException {
+		long remaining;
+		while ((remaining = deadline - System.nanoTime()) > 0) {
+			if (remaining > spinNanos) {
+				LockSupport.parkNanos(remaining - spinNanos);
+			} else {
+				Thread.onSpinWait();
+			}
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package elevator.model;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs each elevator on a dedicated thread, sleeping on the clock between steps
+ */
+public class RealTimeElevatorDriver implements ElevatorDriver {
+
+	private Logger logger = LoggerFactory.getLogger(getClass());
+	private Map<Elevator, Thread> controllerThreads = new ConcurrentHashMap<>();
+	private ThreadFactory threadFactory;
+	
+	/**
+	 * Runs the elevators on platform threads
+	 */
+	public RealTimeElevatorDriver() {
+		this(Thread::new);
+	}
+	
+	/**
+	 * Runs the elevators on threads of the factory, e.g. {@link #virtualThreadFactory()}
+	 */
+	public RealTimeElevatorDriver(ThreadFactory threadFactory) {
+		this.threadFactory = threadFactory;
+	}
+	
+	/**
+	 * Creates virtual threads. Needs a build with the java21 profile running on Java 21 or later.
+	 */
+	public static ThreadFactory virtualThreadFactory() {
+		try {
+			return (ThreadFactory) Class.forName("elevator.model.VirtualThreads").getDeclaredMethod("factory").invoke(null);
+		} catch (ClassNotFoundException e) {
+			throw new UnsupportedOperationException("Virtual threads need a build with the java21 profile");
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	@Override
+	public void start(Elevator elevator) {
+		Thread controllerThread = threadFactory.newThread(() -> controllerLoop(elevator));
+		controllerThread.setName("Elevator " + elevator.getName());
+		controllerThreads.put(elevator, controllerThread);
+		controllerThread.start();
+	}
+	
+	@Override
+	public void wakeUp(Elevator elevator) {
+		// Nothing to do, the controller thread is waiting on the elevator's floor queue 
+	}
+
+	@Override
+	public void stop(Elevator elevator) {
+		Thread controllerThread = controllerThreads.remove(elevator);
+		if (controllerThread == null) {
+			return;
+		}
+		controllerThread.interrupt();
+		try {
+			controllerThread.join(1000);
+		} catch (InterruptedException e) {
+		}
+	}
+	
+	/**
+	 * Main loop of controller thread. Consecutive steps are timed from the end of the previous step rather 
+	 * than from when the thread woke up, so the elevator doesn't fall behind the clock.
+	 */
+	private void controllerLoop(Elevator elevator) {
+		Environment env = elevator.getEnvironment();
+		env.debug(logger, "Controller loop starting");
+		// End of the previous step, null while idle
+		Duration stepEnd = null;
+		while (!Thread.currentThread().isInterrupted()) {
+			try {
+				Duration stepTime = elevator.step();
+				if (stepTime == null) {
+					stepEnd = null;
+					elevator.awaitFloorQueued();
+				} else {
+					stepEnd = (stepEnd != null ? stepEnd : env.getClock().now()).plus(stepTime);
+					env.getClock().sleepUntil(stepEnd);
+				}
+			}
+			catch (InterruptedException e) {
+				break;
+			}
+		}
+		
+		env.debug(logger, "Controller loop exiting");
+	}
+}
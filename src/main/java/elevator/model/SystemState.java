@@ -0,0 +1,33 @@
+package elevator.model;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * The state of all floors, elevators and passengers of an {@link ElevatorSystem} at a point in simulated 
+ * time, from which an identical system can be restored, possibly with other strategies.
+ * 
+ * Only serializable if the floor queues of the merge strategy are.
+ */
+public class SystemState implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	
+	PassengerStore passengers;
+	// Slots of the waiting passengers by floor, in the order they are picked up
+	List<int[]> waitingPassengers;
+	List<ElevatorState> elevators;
+	
+	long passengersSubmitted;
+	long passengersArrived;
+	long passengersInTransit;
+	boolean allPassengersSubmitted;
+	
+	public int getNumberOfFloors() {
+		return waitingPassengers.size();
+	}
+	
+	public int getNumberOfElevators() {
+		return elevators.size();
+	}
+}
@@ -2,12 +2,11 @@ package elevator.model.strategytypes;
 
 import elevator.model.Elevator;
 import elevator.model.Floor;
-import elevator.model.Passenger;
 
 /**
- * Called when an elevator arrives at a floor, returns true if the passenger
- * should embark on the elevator and false if not 
+ * Called when an elevator arrives at a floor, once for each destination floor that passengers are waiting
+ * to go to. Returns true if the passengers going to that floor should embark on the elevator and false if not 
  */
 public interface EmbarkationStrategy {
-	boolean shouldPassengerEmbark(Passenger passenger, Floor fromFloor, Elevator onElevator);
+	boolean shouldPassengersEmbark(int destinationFloor, Floor fromFloor, Elevator onElevator);
 }
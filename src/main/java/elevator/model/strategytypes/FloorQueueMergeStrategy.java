@@ -1,13 +1,29 @@
 package elevator.model.strategytypes;
 
-import java.util.List;
-
 import elevator.model.Elevator.State;
+import elevator.model.FloorQueue;
 
 /**
- * Called when an elevator wants to schedule a new passenger to get a new floor stop list
+ * Called when an elevator wants to schedule a new passenger to get a new floor stop list.
+ * 
+ * The strategy may modify and return the current queue, which is always one created by the strategy itself.
  */
 public interface FloorQueueMergeStrategy {
 
-	List<Integer> merge(State state, int currentFloor, List<Integer> currentQueue, int fromFloor, int toFloor);
+	/**
+	 * Creates an empty queue for an elevator in a building with the specified number of floors
+	 */
+	FloorQueue createQueue(int numFloors);
+	
+	FloorQueue merge(State state, int currentFloor, FloorQueue currentQueue, int fromFloor, int toFloor);
+	
+	/**
+	 * Creates a queue with the stops of a queue created by another strategy, e.g. when a simulation is 
+	 * continued with a different strategy. The other queue may be drained.
+	 * 
+	 * The position is the floor the elevator is at or, if it is on its way to a stop, going to.
+	 */
+	default FloorQueue takeOver(State state, int position, FloorQueue otherQueue, int numFloors) {
+		throw new UnsupportedOperationException(getClass().getSimpleName() + " can't take over queues of other strategies");
+	}
 }
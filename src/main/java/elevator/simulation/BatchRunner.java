@@ -1,39 +1,184 @@
 package elevator.simulation;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.stream.StreamSupport;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class BatchRunner {
 	private static Logger logger = LoggerFactory.getLogger(BatchRunner.class);
-	
+
 	public static void run(List<SimulationParameters> paramList) throws InterruptedException, TimeoutException {
 		List<ElevatorSimulationResult> results = new ArrayList<>();
-		
+
 		for (SimulationParameters params : paramList) {
-			ElevatorSimulator simulator = new ElevatorSimulator(params);			
-			
-			ElevatorSimulationResult result = simulator.run();
+			ElevatorSimulationResult result = simulate(params);
 			results.add(result);
 		}
+
+		logSummary(paramList, results);
+	}
+
+	/**
+	 * Runs the simulations in parallel with one worker thread per available processor
+	 */
+	public static void runParallel(List<SimulationParameters> paramList) throws InterruptedException {
+		runParallel(paramList, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Runs the simulations in parallel on the specified number of worker threads, logging each result as it completes
+	 */
+	public static void runParallel(List<SimulationParameters> paramList, int numThreads) throws InterruptedException {
+		List<SimulationParameters> completedParams = new ArrayList<>();
+		List<ElevatorSimulationResult> results = new ArrayList<>();
+
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try {
+			runParallel(paramList, executor, 2 * numThreads, (params, result) -> {
+				logger.info("\nParams: {}\nResult: {}", params, result);
+				completedParams.add(params);
+				results.add(result);
+			});
+		} finally {
+			executor.shutdownNow();
+		}
+
+		logSummary(completedParams, results);
+	}
+
+	/**
+	 * Runs the simulations on the executor. Results are handed to the listener on the calling thread in the
+	 * order they complete. Each run gets its own environment and strategy instances.
+	 *
+	 * Failed runs are logged and skipped.
+	 */
+	public static void runParallel(
+			Iterable<SimulationParameters> params,
+			ExecutorService executor,
+			BiConsumer<SimulationParameters, ElevatorSimulationResult> listener) throws InterruptedException {
 		
-		Duration sum = Duration.ZERO;
+		runParallel(params, executor, 2 * Runtime.getRuntime().availableProcessors(), listener);
+	}
+	
+	/**
+	 * As above, but only takes parameters from the iterable as runs complete, keeping at most maxPending runs 
+	 * submitted at a time. Lets sweeps of any size, e.g. a {@link ParameterSweep}, be streamed through the executor.
+	 */
+	public static void runParallel(
+			Iterable<SimulationParameters> params,
+			ExecutorService executor,
+			int maxPending,
+			BiConsumer<SimulationParameters, ElevatorSimulationResult> listener) throws InterruptedException {
+
+		if (maxPending < 1) {
+			throw new IllegalArgumentException("Invalid number of pending runs: " + maxPending);
+		}
 		
+		CompletionService<ElevatorSimulationResult> completionService = new ExecutorCompletionService<>(executor);
+		Map<Future<ElevatorSimulationResult>, SimulationParameters> pending = new HashMap<>();
+		Iterator<SimulationParameters> it = params.iterator();
+
+		try {
+			while (true) {
+				while (pending.size() < maxPending && it.hasNext()) {
+					SimulationParameters next = it.next();
+					pending.put(completionService.submit(() -> simulate(next)), next);
+				}
+				if (pending.isEmpty()) {
+					break;
+				}
+				
+				Future<ElevatorSimulationResult> future = completionService.take();
+				SimulationParameters completed = pending.remove(future);
+				try {
+					listener.accept(completed, future.get());
+				} catch (ExecutionException e) {
+					logger.error("Simulation failed: " + completed, e.getCause());
+				}
+			}
+		} finally {
+			pending.keySet().forEach(f -> f.cancel(true));
+		}
+	}
+
+	/**
+	 * Runs the simulations that aren't already in the store, appending each result to the store as it completes. 
+	 * A sweep interrupted by a crash can be resumed by running it again with the same store. Throws 
+	 * IllegalArgumentException on parameters whose key is incomplete, see SimulationParameters.isKeyComplete().
+	 */
+	public static void runResumable(
+			Iterable<SimulationParameters> params,
+			ExecutorService executor,
+			CsvResultStore store) throws InterruptedException {
+		
+		AtomicLong numSkipped = new AtomicLong();
+		Iterable<SimulationParameters> remaining = () -> StreamSupport.stream(params.spliterator(), false)
+			.filter(p -> {
+				if (store.contains(p)) {
+					numSkipped.incrementAndGet();
+					return false;
+				}
+				return true;
+			})
+			.iterator();
+		
+		runParallel(remaining, executor, (p, result) -> {
+			try {
+				store.append(p, result);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		
+		logger.info("Sweep complete, skipped {} runs already in {}", numSkipped, store);
+	}
+
+	static ElevatorSimulationResult simulate(SimulationParameters params) throws InterruptedException, TimeoutException {
+		if (params.resultCache != null) {
+			return params.resultCache.run(params);
+		}
+		return new ElevatorSimulator(params).run();
+	}
+
+	private static void logSummary(List<SimulationParameters> paramList, List<ElevatorSimulationResult> results) {
+		Duration sum = Duration.ZERO;
+		LatencyHistogram waitTimes = new LatencyHistogram();
+		LatencyHistogram rideTimes = new LatencyHistogram();
+
 		StringBuilder sb = new StringBuilder();
 		for (int i = 0; i < paramList.size(); ++i) {
 			sb.append("\nParams: ").append(paramList.get(i).toString())
 			.append("\nResult: ").append(results.get(i).toString()).append("\n");
-			
+
 			sum = sum.plus(results.get(i).simTimeDuration);
+			waitTimes.merge(results.get(i).waitTimes);
+			rideTimes.merge(results.get(i).rideTimes);
 		}
-		
-		sb.append("\nAverage: ").append(sum.toSeconds() / paramList.size()).append(" seconds");
-		
+
+		if (!paramList.isEmpty()) {
+			sb.append("\nAverage: ").append(sum.toSeconds() / paramList.size()).append(" seconds");
+			sb.append("\nAll wait times: ").append(waitTimes);
+			sb.append("\nAll ride times: ").append(rideTimes);
+		}
+
 		logger.info(sb.toString());
-		
 	}
 }
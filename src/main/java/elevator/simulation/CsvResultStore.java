@@ -0,0 +1,210 @@
+package elevator.simulation;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Results of simulation runs in a CSV file, one row per run, appended as runs complete. 
+ * 
+ * Rows are keyed by {@link SimulationParameters#getHash()}, so a sweep restarted after a crash can skip the 
+ * runs already in the file, see {@link BatchRunner#runResumable}. A row cut short by a crash is removed 
+ * when the file is opened again. Parameters whose key is incomplete are refused, since other parameters 
+ * sharing their key would be taken as done, see {@link SimulationParameters#isKeyComplete()}.
+ */
+public class CsvResultStore implements Closeable {
+
+	public static final List<String> COLUMNS = List.of(
+		"hash", "seed", "floors", "elevators", "arrivals", "embarkation", "selection", "merge", "engine",
+		"passengers", "sim_seconds", "real_millis",
+		"wait_mean_s", "wait_p50_s", "wait_p90_s", "wait_p99_s", "wait_max_s",
+		"ride_mean_s", "ride_p50_s", "ride_p90_s", "ride_p99_s", "ride_max_s",
+		"key");
+	
+	private Path path;
+	private Writer writer;
+	private Set<String> completed = new HashSet<>();
+	
+	/**
+	 * Opens the store, creating the file if it doesn't exist
+	 */
+	public CsvResultStore(Path path) throws IOException {
+		this.path = path;
+		
+		if (Files.exists(path)) {
+			removePartialRow(path);
+		}
+		boolean exists = Files.exists(path) && Files.size(path) > 0;
+		if (exists) {
+			scan(path, row -> completed.add(row[0]));
+		}
+		
+		writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		if (!exists) {
+			writeRow(new ArrayList<>(COLUMNS));
+		}
+	}
+	
+	public synchronized boolean contains(SimulationParameters params) {
+		checkKeyComplete(params);
+		return completed.contains(params.getHash());
+	}
+	
+	/**
+	 * Number of runs in the store
+	 */
+	public synchronized int size() {
+		return completed.size();
+	}
+	
+	/**
+	 * Appends the result of a run and flushes it to the file
+	 */
+	public synchronized void append(SimulationParameters params, ElevatorSimulationResult result) throws IOException {
+		checkKeyComplete(params);
+		String hash = params.getHash();
+		LatencyHistogram waitTimes = result.getWaitTimes();
+		LatencyHistogram rideTimes = result.getRideTimes();
+		
+		writeRow(Arrays.asList(
+			hash, 
+			String.valueOf(params.randomSeed), 
+			String.valueOf(params.numFloors), 
+			String.valueOf(params.numElevators),
+			params.arrivalProcess == null ? String.valueOf(params.numPassengers) : params.describedArrivalProcess.toString(),
+			params.embarkationStrategyClass.getSimpleName(), 
+			params.elevatorSelectionStrategyClass.getSimpleName(), 
+			params.floorQueueMergeStrategyClass.getSimpleName(),
+			params.engine.name(),
+			String.valueOf(waitTimes.getCount()),
+			seconds(result.getSimTimeDuration()),
+			String.valueOf(result.getRealTimeDuration().toMillis()),
+			seconds(waitTimes.getMean()), seconds(waitTimes.getPercentile(50)), seconds(waitTimes.getPercentile(90)),
+			seconds(waitTimes.getPercentile(99)), seconds(waitTimes.getMax()),
+			seconds(rideTimes.getMean()), seconds(rideTimes.getPercentile(50)), seconds(rideTimes.getPercentile(90)),
+			seconds(rideTimes.getPercentile(99)), seconds(rideTimes.getMax()),
+			params.getKey()));
+		writer.flush();
+		
+		completed.add(hash);
+	}
+	
+	private static void checkKeyComplete(SimulationParameters params) {
+		if (!params.isKeyComplete()) {
+			throw new IllegalArgumentException("Runs can't be told apart by key, use an arrival process that describes itself: " + params);
+		}
+	}
+	
+	private static String seconds(Duration duration) {
+		return String.format(Locale.ROOT, "%.3f", duration.toNanos() / 1e9);
+	}
+	
+	private void writeRow(List<String> values) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < values.size(); ++i) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			String value = values.get(i);
+			if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0) {
+				sb.append('"').append(value.replace("\"", "\"\"")).append('"');
+			} else {
+				sb.append(value);
+			}
+		}
+		writer.write(sb.append('\n').toString());
+	}
+	
+	/**
+	 * Passes every row of a result file to the consumer, with the values in the order of {@link #COLUMNS}
+	 */
+	public static void scan(Path path, Consumer<String[]> rows) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			String header = reader.readLine();
+			if (header == null || !Arrays.asList(parseRow(header)).equals(COLUMNS)) {
+				throw new IllegalStateException("Not a result file with the expected columns: " + path);
+			}
+			
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (!line.isEmpty()) {
+					rows.accept(parseRow(line));
+				}
+			}
+		}
+	}
+	
+	private static String[] parseRow(String line) {
+		List<String> values = new ArrayList<>(COLUMNS.size());
+		StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); ++i) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c != '"') {
+					value.append(c);
+				} else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					value.append('"');
+					++i;
+				} else {
+					quoted = false;
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				values.add(value.toString());
+				value.setLength(0);
+			} else {
+				value.append(c);
+			}
+		}
+		values.add(value.toString());
+		return values.toArray(new String[0]);
+	}
+	
+	/**
+	 * Truncates the file after the last complete row, in case a crash cut the last one short
+	 */
+	private static void removePartialRow(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			ByteBuffer b = ByteBuffer.allocate(1);
+			long end = channel.size();
+			while (end > 0) {
+				b.clear();
+				channel.read(b, end - 1);
+				if (b.get(0) == '\n') {
+					break;
+				}
+				--end;
+			}
+			if (end < channel.size()) {
+				channel.truncate(end);
+			}
+		}
+	}
+	
+	@Override
+	public synchronized void close() throws IOException {
+		writer.close();
+	}
+	
+	@Override
+	public String toString() {
+		return path.toString();
+	}
+}
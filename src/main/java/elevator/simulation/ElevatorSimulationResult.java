@@ -1,19 +1,62 @@
 package elevator.simulation;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.time.Duration;
 
 public class ElevatorSimulationResult {
 
 	Duration realTimeDuration;
 	Duration simTimeDuration;
+	
+	// Time from being submitted to a floor until boarding an elevator
+	LatencyHistogram waitTimes;
+	
+	// Time from boarding an elevator until arriving at the destination floor
+	LatencyHistogram rideTimes;
 
-	public ElevatorSimulationResult(Duration realTimeDuration, Duration simTimeDuration) {
+	public ElevatorSimulationResult(Duration realTimeDuration, Duration simTimeDuration, LatencyHistogram waitTimes, LatencyHistogram rideTimes) {
 		this.realTimeDuration = realTimeDuration;
 		this.simTimeDuration = simTimeDuration;
+		this.waitTimes = waitTimes;
+		this.rideTimes = rideTimes;
+	}
+	
+	public Duration getRealTimeDuration() {
+		return realTimeDuration;
+	}
+	
+	public Duration getSimTimeDuration() {
+		return simTimeDuration;
+	}
+	
+	public LatencyHistogram getWaitTimes() {
+		return waitTimes;
+	}
+	
+	public LatencyHistogram getRideTimes() {
+		return rideTimes;
+	}
+	
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeLong(realTimeDuration.toNanos());
+		out.writeLong(simTimeDuration.toNanos());
+		waitTimes.writeTo(out);
+		rideTimes.writeTo(out);
+	}
+	
+	public static ElevatorSimulationResult readFrom(DataInput in) throws IOException {
+		Duration realTimeDuration = Duration.ofNanos(in.readLong());
+		Duration simTimeDuration = Duration.ofNanos(in.readLong());
+		LatencyHistogram waitTimes = LatencyHistogram.readFrom(in);
+		LatencyHistogram rideTimes = LatencyHistogram.readFrom(in);
+		return new ElevatorSimulationResult(realTimeDuration, simTimeDuration, waitTimes, rideTimes);
 	}
 	
 	@Override
 	public String toString() {
-		return String.format("Simulation time duration = %d seconds. Real time duration = %d seconds", simTimeDuration.toSeconds(), realTimeDuration.toSeconds());
+		return String.format("Simulation time duration = %d seconds. Real time duration = %d seconds. Wait times: [%s]. Ride times: [%s]", 
+			simTimeDuration.toSeconds(), realTimeDuration.toSeconds(), waitTimes, rideTimes);
 	}
 }
@@ -1,23 +1,46 @@
 package elevator.simulation;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Objects;
-import java.util.Random;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.management.JMException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import elevator.model.Clock;
 import elevator.model.Constants;
+import elevator.model.BuildingView;
 import elevator.model.Elevator;
+import elevator.model.ElevatorDriver;
 import elevator.model.ElevatorSystem;
 import elevator.model.Environment;
+import elevator.model.EventJournal;
 import elevator.model.Floor;
-import elevator.model.Passenger;
+import elevator.model.PassengerStore;
+import elevator.model.RandomStreams;
+import elevator.model.RealTimeClock;
+import elevator.model.RealTimeElevatorDriver;
+import elevator.simulation.event.EventElevatorDriver;
+import elevator.simulation.event.EventQueue;
+import elevator.simulation.metrics.MetricsHttpExporter;
+import elevator.simulation.metrics.MetricsRegistry;
+import elevator.simulation.traffic.Arrival;
+import elevator.simulation.traffic.ArrivalProcess;
+import elevator.simulation.traffic.ArrivalTraceWriter;
+import elevator.simulation.traffic.DelayArrivalProcess;
+import elevator.simulation.traffic.RecordingArrivalProcess;
+import elevator.simulation.traffic.TrafficPattern;
 
 public class ElevatorSimulator {
 
@@ -26,11 +49,33 @@ public class ElevatorSimulator {
 	private SimulationParameters params;
 	private Environment env;
 	private ElevatorSystem system;
+	private EventQueue events;
 
 	private Instant timeout;
-	private List<Passenger> passengers;
+	private ArrivalProcess arrivals;
+	private ArrivalProcess unrecordedArrivals;
+	private EventElevatorDriver eventDriver;
+	private boolean eventsStarted;
+	private boolean opened;
+	private Duration simStart;
+	private long numSubmitted;
+	private LatencyHistogram waitTimes = new LatencyHistogram();
+	private LatencyHistogram rideTimes = new LatencyHistogram();
+	private ReentrantLock histogramLock = new ReentrantLock();
 
+	private MetricsRegistry metrics;
+	private MetricsHttpExporter metricsExporter;
 	private Thread loggerThread;
+	// Platform threads unless running on virtual threads
+	private ThreadFactory threadFactory = Thread::new;
+	private Thread viewThread;
+	// Replaced as a whole by the view thread, so readers never see a view being built
+	private volatile BuildingView view;
+	
+	private static final AtomicInteger RUN_COUNTER = new AtomicInteger();
+	
+	// Number of journal events buffered between writes to the file
+	private static final int JOURNAL_BUFFER_SIZE = 1 << 16;
 	
 	public ElevatorSimulator(SimulationParameters params) {
 		if (params.numFloors < 2) {
@@ -41,47 +86,179 @@ public class ElevatorSimulator {
 			throw new IllegalArgumentException("Invalid number of elevators");
 		}
 
-		if (params.numPassengers < 1) {
-			throw new IllegalArgumentException("Invalid number of passengers");
+		if (params.arrivalProcess == null && params.snapshot == null) {
+			if (params.numPassengers < 1) {
+				throw new IllegalArgumentException("Invalid number of passengers");
+			}
+			Objects.requireNonNull(params.delayBetweenPassengers);
 		}
 
 		Objects.requireNonNull(params.elevatorSelectionStrategy);
 		Objects.requireNonNull(params.embarkationStrategy);
 		Objects.requireNonNull(params.floorQueueMergeStrategy);
-		Objects.requireNonNull(params.delayBetweenPassengers);
+		Objects.requireNonNull(params.engine);
+
+		SavedSimulation saved = null;
+		if (params.snapshot != null) {
+			if (params.engine != SimulationEngine.DISCRETE_EVENT) {
+				throw new IllegalArgumentException("Only discrete event simulations can continue from a snapshot");
+			}
+			if (params.snapshot.getNumberOfFloors() != params.numFloors || params.snapshot.getNumberOfElevators() != params.numElevators) {
+				throw new IllegalArgumentException("Number of floors and elevators don't match the snapshot " + params.snapshot);
+			}
+			saved = params.snapshot.restore();
+		}
 
 		this.params = params;
 		
+		Clock clock;
+		ElevatorDriver elevatorDriver;
+		if (params.engine == SimulationEngine.DISCRETE_EVENT) {
+			events = new EventQueue();
+			clock = events.getClock();
+			eventDriver = new EventElevatorDriver(events);
+			elevatorDriver = eventDriver;
+		} else {
+			if (params.virtualThreads) {
+				// Spinning would hold on to the carrier threads
+				clock = new RealTimeClock(params.timeFactor, Duration.ZERO);
+				threadFactory = RealTimeElevatorDriver.virtualThreadFactory();
+			} else {
+				clock = new RealTimeClock(params.timeFactor);
+			}
+			elevatorDriver = new RealTimeElevatorDriver(threadFactory);
+		}
+		
 		env = new Environment(
-			new Clock(params.timeFactor), 
+			clock,
+			elevatorDriver,
 			new Constants(),
-			new Random(params.randomSeed),
+			saved != null ? saved.randomStreams : new RandomStreams(params.randomSeed),
 			params.debugOutput,
-			params.elevatorSelectionStrategy,
-			params.embarkationStrategy,
-			params.floorQueueMergeStrategy);
+			params.elevatorSelectionStrategy.get(),
+			params.embarkationStrategy.get(),
+			params.floorQueueMergeStrategy.get());
 	
 		system = new ElevatorSystem(params.numElevators, params.numFloors, env);
+		metrics = new MetricsRegistry(env);
+		
+		env.setArrivalListener(this::passengerArrived);
 		
-		passengers = new ArrayList<>(params.numPassengers);
-		for (int i = 0; i < params.numPassengers; ++i) {
-			int destinationFloor = getRandomBetweenAndNot(0, params.numFloors, -1);
-			passengers.add(new Passenger(String.format("P%d", i + 1), destinationFloor));
+		if (saved != null) {
+			restore(saved);
+		} else if (params.arrivalProcess != null) {
+			arrivals = params.arrivalProcess.get();
+		} else {
+			arrivals = new DelayArrivalProcess(params.numPassengers, params.delayBetweenPassengers, TrafficPattern.INTERFLOOR);
 		}
+		unrecordedArrivals = arrivals;
 		
-		loggerThread = new Thread(this::loggerLoop, "Logger loop");
-		loggerThread.setDaemon(true);
-		loggerThread.start();
+		if (events == null) {
+			loggerThread = threadFactory.newThread(this::loggerLoop);
+			loggerThread.setName("Logger loop");
+			loggerThread.setDaemon(true);
+			loggerThread.start();
+		}
+	}
+
+	/**
+	 * Continues from a saved state. The elevators' initial steps are dropped and the pending events of 
+	 * the saved simulation are scheduled in their original order.
+	 */
+	private void restore(SavedSimulation saved) {
+		events.reset(Duration.ofNanos(saved.timeNanos));
+		eventDriver.clearScheduled();
+		
+		system.restoreState(saved.system);
+		arrivals = saved.arrivals;
+		numSubmitted = saved.numSubmitted;
+		waitTimes = saved.waitTimes;
+		rideTimes = saved.rideTimes;
+		
+		for (SavedSimulation.PendingEvent event : saved.pendingEvents) {
+			Duration delay = Duration.ofNanos(event.timeNanos - saved.timeNanos);
+			if (event.arrival != null) {
+				events.schedule(delay, new ArrivalEvent(event.arrival));
+			} else {
+				eventDriver.scheduleStep(env.getElevators().get(event.elevator), delay);
+			}
+		}
+		
+		// Results cover the whole run, including the part before the snapshot 
+		simStart = Duration.ZERO;
+		eventsStarted = true;
+	}
+	
+	/**
+	 * Captures the state of a discrete event simulation, from which other simulations can continue, see 
+	 * {@link SimulationParameters#withSnapshot(SimulationSnapshot)}. Run the simulation up to the point of 
+	 * interest with {@link #runUntil(Duration)} first.
+	 */
+	public SimulationSnapshot snapshot() {
+		if (events == null) {
+			throw new IllegalStateException("Only discrete event simulations can be snapshotted");
+		}
+		if (!eventsStarted) {
+			throw new IllegalStateException("Simulation hasn't started, run it up to the time of the snapshot first");
+		}
+		
+		SavedSimulation saved = new SavedSimulation();
+		saved.timeNanos = env.getClock().now().toNanos();
+		saved.numFloors = params.numFloors;
+		saved.numElevators = params.numElevators;
+		saved.system = system.saveState();
+		saved.randomStreams = env.getRandomStreams();
+		saved.arrivals = unrecordedArrivals;
+		saved.numSubmitted = numSubmitted;
+		saved.waitTimes = waitTimes;
+		saved.rideTimes = rideTimes;
+		
+		events.forEachPending((time, action) -> {
+			Elevator elevator = eventDriver.getSteppedElevator(action);
+			if (elevator != null) {
+				saved.pendingEvents.add(new SavedSimulation.PendingEvent(time.toNanos(), elevator.getNumber(), null));
+			} else if (action instanceof ArrivalEvent) {
+				saved.pendingEvents.add(new SavedSimulation.PendingEvent(time.toNanos(), -1, ((ArrivalEvent) action).arrival));
+			} else {
+				throw new IllegalStateException("Unknown event " + action);
+			}
+		});
+		
+		// Serialized right away, so the simulation can go on
+		return new SimulationSnapshot(saved);
 	}
 
 	public Environment getEnvironment() {
 		return env;
 	}
 	
+	/**
+	 * The latest view of the elevators and floors, or null if views aren't published, see 
+	 * {@link SimulationParameters#withViewInterval(Duration)}. Never blocks the simulation.
+	 */
+	public BuildingView getView() {
+		return view;
+	}
+	
+	private void viewLoop() {
+		long intervalMillis = Math.max(1, params.viewInterval.toMillis());
+		while (true) {
+			try {
+				Thread.sleep(intervalMillis);
+			} catch (InterruptedException e) {
+				return;
+			}
+			view = system.getView(view);
+		}
+	}
+	
 	private void loggerLoop() {
 		while (true) {
 			
-			logger.info(createStatus());
+			logger.info(metrics.getSummary());
+			if (env.debugOutput()) {
+				logger.info(createStatus());
+			}
 			
 			try {
 				Thread.sleep(2000);
@@ -110,71 +287,292 @@ public class ElevatorSimulator {
 
 		this.timeout = Instant.now().plus(params.timeout);
 		
-		long start = System.currentTimeMillis();
-		deployPassengers();
+		open();
 		
-		waitUntilAllPassengersArrived();
-		long end = System.currentTimeMillis();
-		
-		loggerThread.interrupt();		
-		system.stop();
+		long start = System.currentTimeMillis();
+		Duration simEnd;
+		long end;
+		try {
+			if (events != null) {
+				runEvents(null);
+			} else {
+				if (params.virtualThreads) {
+					deployPassengersOnThread();
+				} else {
+					deployPassengers();
+				}
+				
+				waitUntilAllPassengersArrived();
+			}
+			simEnd = env.getClock().now();
+			end = System.currentTimeMillis();
+		} finally {
+			stop();
+		}
 
 		Duration realTimeDuration = Duration.ofMillis(end - start);
-		Duration simTimeDuration = env.getClock().getSimulatedTime(realTimeDuration);
+		Duration simTimeDuration = simEnd.minus(simStart);
+		
+		histogramLock.lock();
+		try {
+			return new ElevatorSimulationResult(realTimeDuration, simTimeDuration, waitTimes, rideTimes);
+		} finally {
+			histogramLock.unlock();
+		}
+	}
+	
+	/**
+	 * Closes the trace files of the arrival process, if any, also when the run failed
+	 */
+	private void closeArrivals() {
+		if (arrivals instanceof Closeable) {
+			try {
+				((Closeable) arrivals).close();
+			} catch (IOException e) {
+				logger.warn("Failed to close arrival process", e);
+			}
+		}
+	}
+	
+	private void closeJournal() {
+		if (env.getJournal() != null) {
+			try {
+				env.getJournal().close();
+			} catch (IOException e) {
+				logger.warn("Failed to close event journal", e);
+			}
+		}
+	}
+	
+	/**
+	 * Opens the trace and journal files and exposes the metrics, the first time the simulation is run
+	 */
+	private void open() {
+		if (opened) {
+			return;
+		}
+		opened = true;
+		
+		if (simStart == null) {
+			simStart = env.getClock().now();
+		}
+		
+		try {
+			if (params.arrivalRecording != null) {
+				arrivals = new RecordingArrivalProcess(arrivals, new ArrivalTraceWriter(params.arrivalRecording));
+			}
+			if (params.journal != null) {
+				env.setJournal(new EventJournal(params.journal, JOURNAL_BUFFER_SIZE));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		
+		startMetrics();
 		
-		return new ElevatorSimulationResult(realTimeDuration, simTimeDuration);
+		if (params.viewInterval != null) {
+			view = system.getView(null);
+			viewThread = threadFactory.newThread(this::viewLoop);
+			viewThread.setName("View publisher");
+			viewThread.setDaemon(true);
+			viewThread.start();
+		}
+	}
+	
+	/**
+	 * Exposes the metrics of the run as MBeans and over HTTP, if asked for
+	 */
+	private void startMetrics() {
+		if (params.jmx) {
+			try {
+				metrics.registerMBeans("run-" + RUN_COUNTER.incrementAndGet());
+			} catch (JMException e) {
+				logger.warn("Failed to register metrics MBeans", e);
+			}
+		}
+		if (params.metricsPort >= 0) {
+			metricsExporter = new MetricsHttpExporter(metrics);
+			try {
+				int port = metricsExporter.start(params.metricsPort);
+				logger.info("Serving metrics on http://localhost:{}/metrics", port);
+			} catch (IOException e) {
+				metricsExporter = null;
+				logger.warn("Failed to start metrics HTTP server", e);
+			}
+		}
+	}
+	
+	public MetricsRegistry getMetrics() {
+		return metrics;
 	}
 	
 	public void stop() {
-		loggerThread.interrupt();
+		if (loggerThread != null) {
+			loggerThread.interrupt();
+		}
+		if (viewThread != null) {
+			viewThread.interrupt();
+		}
 		system.stop();
+		metrics.unregisterMBeans();
+		if (metricsExporter != null) {
+			metricsExporter.stop();
+		}
+		closeArrivals();
+		closeJournal();
 	}
 
-	private void deployPassengers() throws InterruptedException {
-		logger.info("Deploying passengers");
+	/**
+	 * Folds an arrived passenger into the statistics. Called from the elevator controllers.
+	 */
+	private void passengerArrived(int passenger) {
+		PassengerStore passengers = env.getPassengers();
+		histogramLock.lock();
+		try {
+			waitTimes.record(TimeUnit.NANOSECONDS.toMillis(passengers.getWaitNanos(passenger)));
+			rideTimes.record(TimeUnit.NANOSECONDS.toMillis(passengers.getRideNanos(passenger)));
+		} finally {
+			histogramLock.unlock();
+		}
+	}
+
+	/**
+	 * Runs a discrete event simulation up to the specified simulated time, e.g. to take a snapshot there. 
+	 * Returns false if all passengers have arrived. Call {@link #run()} to run the rest of the simulation.
+	 */
+	public boolean runUntil(Duration time) throws TimeoutException {
+		if (events == null) {
+			throw new IllegalStateException("Only discrete event simulations can be run up to a point in time");
+		}
+		if (timeout == null) {
+			this.timeout = Instant.now().plus(params.timeout);
+		}
 		
-		for (Passenger p : passengers) {
-			int departureFloor = getRandomBetweenAndNot(0, params.numFloors, p.getDestinationFloor());
-			
-			env.debug(logger, "Submitting passenger {} to floor {} going to floor {}", p.getName(), 
-				departureFloor, p.getDestinationFloor());
-			
-			system.submitPassenger(p, departureFloor);
-			
-			env.getClock().sleep(params.delayBetweenPassengers.apply(env.getRandom()));
+		open();
+		runEvents(time);
+		return !env.hasAllPassengersArrived();
+	}
+	
+	/**
+	 * Runs the event queue until all passengers have arrived or, if an end time is specified, until the 
+	 * next event is after the end time
+	 */
+	private void runEvents(Duration endTime) throws TimeoutException {
+		if (!eventsStarted) {
+			eventsStarted = true;
+			logger.info("Deploying passengers");
+			scheduleNextArrival();
+		}
+		
+		long numEvents = 0;
+		while (!env.hasAllPassengersArrived()) {
+			if (endTime != null) {
+				Duration next = events.getNextEventTime();
+				if (next == null || next.compareTo(endTime) > 0) {
+					return;
+				}
+			}
+			if (!events.runNext()) {
+				throw new IllegalStateException("Simulation ran out of events before all passengers have arrived");
+			}
+			if (++numEvents % 1024 == 0 && Instant.now().isAfter(timeout)) {
+				throw new TimeoutException("Simulation timed out before all passengers have arrived");
+			}
 		}
 		
-		logger.info("All passengers have been deployed");
+		logger.info("All passengers have arrived");
 	}
 	
-	private int getRandomBetweenAndNot(int rangeStart, int rangeEnd, int exclude) {
-		int result = exclude;
-		while (result == exclude) {
-			result = rangeStart + env.getRandom().nextInt(rangeEnd - rangeStart);
+	/**
+	 * Schedules the next passenger arrival. Only one arrival is pending at any time.
+	 */
+	private void scheduleNextArrival() {
+		Arrival arrival = arrivals.next(env.getRandomStreams().getTraffic(), params.numFloors);
+		if (arrival == null) {
+			allPassengersDeployed();
+			return;
 		}
-		return result;
+		
+		events.schedule(arrival.getTime().minus(env.getClock().now()), new ArrivalEvent(arrival));
 	}
 	
-	private void waitUntilAllPassengersArrived() throws TimeoutException, InterruptedException {
+	private class ArrivalEvent implements Runnable {
+		final Arrival arrival;
+		
+		ArrivalEvent(Arrival arrival) {
+			this.arrival = arrival;
+		}
+		
+		@Override
+		public void run() {
+			submitPassenger(arrival);
+			scheduleNextArrival();
+		}
+	}
 
-		while (Instant.now().isBefore(timeout)) {
-			if (hasAllPassengersArrived()) {
-				break;
+	/**
+	 * Deploys passengers on a thread of the thread factory, e.g. a virtual thread, and waits for it to finish
+	 */
+	private void deployPassengersOnThread() throws InterruptedException {
+		AtomicReference<RuntimeException> failure = new AtomicReference<>();
+		Thread deployer = threadFactory.newThread(() -> {
+			try {
+				deployPassengers();
+			} catch (InterruptedException e) {
+				// Stopped
+			} catch (RuntimeException e) {
+				failure.set(e);
 			}
-			Thread.sleep(10);
+		});
+		deployer.setName("Passenger deployer");
+		deployer.start();
+		
+		try {
+			deployer.join();
+		} catch (InterruptedException e) {
+			deployer.interrupt();
+			throw e;
 		}
+		if (failure.get() != null) {
+			throw failure.get();
+		}
+	}
+
+	private void deployPassengers() throws InterruptedException {
+		logger.info("Deploying passengers");
 		
-		if (hasAllPassengersArrived()) {
+		Arrival arrival;
+		while ((arrival = arrivals.next(env.getRandomStreams().getTraffic(), params.numFloors)) != null) {
+			env.getClock().sleepUntil(arrival.getTime());
+			submitPassenger(arrival);
+		}
+		
+		allPassengersDeployed();
+	}
+	
+	private void allPassengersDeployed() {
+		logger.info("All {} passengers have been deployed", numSubmitted);
+		env.allPassengersSubmitted();
+	}
+	
+	private void submitPassenger(Arrival arrival) {
+		int passenger = env.getPassengers().add(++numSubmitted, arrival.getDepartureFloor(), arrival.getDestinationFloor());
+		
+		if (env.debugOutput()) {
+			env.debug(logger, "Submitting passenger {} to floor {} going to floor {}", env.getPassengers().getName(passenger), 
+				arrival.getDepartureFloor(), arrival.getDestinationFloor());
+		}
+		
+		system.submitPassenger(passenger);
+	}
+	
+	private void waitUntilAllPassengersArrived() throws TimeoutException, InterruptedException {
+
+		if (env.awaitAllPassengersArrived(Duration.between(Instant.now(), timeout))) {
 			logger.info("All passengers have arrived");
 		} else {
 			throw new TimeoutException("Simulation timed out before all passengers have arrived");
 		}
 		
 	}
-
-	private boolean hasAllPassengersArrived() {
-		return passengers.stream().allMatch(Passenger::hasArrived);
-	}
-
-	
 }
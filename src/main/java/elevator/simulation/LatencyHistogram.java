@@ -0,0 +1,167 @@
+package elevator.simulation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.time.Duration;
+
+/**
+ * Fixed memory histogram of durations with millisecond resolution.
+ * 
+ * Values are counted in log-linear buckets: each power of two range is split into 
+ * {@value #SUB_BUCKETS} equally wide buckets, so percentiles are reported with a relative 
+ * error of at most about 3%. Values up to {@value #SUB_BUCKETS} ms are counted exactly.
+ * 
+ * Histograms can be merged, e.g. to get the distribution over several simulation runs.
+ * Not thread safe.
+ */
+public class LatencyHistogram implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	
+	// Enough for Long.MAX_VALUE milliseconds
+	private static final int NUM_BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+	
+	private long[] counts = new long[NUM_BUCKETS];
+	private long totalCount;
+	private long sum;
+	private long min = Long.MAX_VALUE;
+	private long max;
+	
+	public void record(Duration duration) {
+		record(duration.toMillis());
+	}
+	
+	public void record(long millis) {
+		if (millis < 0) {
+			throw new IllegalArgumentException("Negative duration: " + millis);
+		}
+		
+		++counts[bucketIndex(millis)];
+		++totalCount;
+		sum += millis;
+		min = Math.min(min, millis);
+		max = Math.max(max, millis);
+	}
+	
+	/**
+	 * Adds all values recorded in the other histogram to this one
+	 */
+	public void merge(LatencyHistogram other) {
+		for (int i = 0; i < NUM_BUCKETS; ++i) {
+			counts[i] += other.counts[i];
+		}
+		totalCount += other.totalCount;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+	
+	public long getCount() {
+		return totalCount;
+	}
+	
+	public Duration getMin() {
+		return totalCount == 0 ? Duration.ZERO : Duration.ofMillis(min);
+	}
+	
+	public Duration getMax() {
+		return Duration.ofMillis(max);
+	}
+	
+	public Duration getMean() {
+		return totalCount == 0 ? Duration.ZERO : Duration.ofMillis(sum / totalCount);
+	}
+	
+	/**
+	 * Returns the value below which the specified percentage of the recorded values fall, e.g. 99 for p99 
+	 */
+	public Duration getPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("Invalid percentile: " + percentile);
+		}
+		if (totalCount == 0) {
+			return Duration.ZERO;
+		}
+		
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+		long seen = 0;
+		for (int i = 0; i < NUM_BUCKETS; ++i) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Duration.ofMillis(Math.max(min, Math.min(max, bucketUpperBound(i))));
+			}
+		}
+		return getMax();
+	}
+	
+	/**
+	 * Writes the histogram in a compact binary form, only including non-empty buckets
+	 */
+	public void writeTo(DataOutput out) throws IOException {
+		out.writeLong(totalCount);
+		out.writeLong(sum);
+		out.writeLong(min);
+		out.writeLong(max);
+		
+		int numNonEmpty = 0;
+		for (long count : counts) {
+			if (count != 0) {
+				++numNonEmpty;
+			}
+		}
+		out.writeInt(numNonEmpty);
+		for (int i = 0; i < NUM_BUCKETS; ++i) {
+			if (counts[i] != 0) {
+				out.writeShort(i);
+				out.writeLong(counts[i]);
+			}
+		}
+	}
+	
+	public static LatencyHistogram readFrom(DataInput in) throws IOException {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.totalCount = in.readLong();
+		histogram.sum = in.readLong();
+		histogram.min = in.readLong();
+		histogram.max = in.readLong();
+		
+		int numNonEmpty = in.readInt();
+		for (int i = 0; i < numNonEmpty; ++i) {
+			histogram.counts[in.readUnsignedShort()] = in.readLong();
+		}
+		return histogram;
+	}
+	
+	private static int bucketIndex(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> exponent) - SUB_BUCKETS;
+		return (exponent + 1) * SUB_BUCKETS + subBucket;
+	}
+	
+	private static long bucketUpperBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int exponent = index / SUB_BUCKETS - 1;
+		long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+		return ((subBucket + 1) << exponent) - 1;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("p50 = %.1fs, p90 = %.1fs, p99 = %.1fs, max = %.1fs", 
+			seconds(getPercentile(50)), seconds(getPercentile(90)), seconds(getPercentile(99)), seconds(getMax()));
+	}
+	
+	private static double seconds(Duration duration) {
+		return duration.toMillis() / 1000d;
+	}
+}
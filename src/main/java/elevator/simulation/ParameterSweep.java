@@ -0,0 +1,218 @@
+package elevator.simulation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import elevator.model.strategytypes.ElevatorSelectionStrategy;
+import elevator.model.strategytypes.EmbarkationStrategy;
+import elevator.model.strategytypes.FloorQueueMergeStrategy;
+import elevator.simulation.traffic.ArrivalProcess;
+
+/**
+ * The cartesian product of values for any number of simulation parameters, applied on top of a base 
+ * configuration.
+ * 
+ * The combinations are never materialized. Each one is created from its index when iterated, so sweeps 
+ * of millions of points can be streamed, also in parallel since the spliterator splits evenly. The 
+ * first dimension added varies the slowest.
+ */
+public class ParameterSweep implements Iterable<SimulationParameters> {
+
+	private static class Dimension<T> {
+		final BiFunction<SimulationParameters, T, SimulationParameters> setter;
+		final List<T> values;
+		
+		Dimension(BiFunction<SimulationParameters, T, SimulationParameters> setter, List<T> values) {
+			this.setter = setter;
+			this.values = values;
+		}
+		
+		void apply(SimulationParameters params, int index) {
+			setter.apply(params, values.get(index));
+		}
+	}
+	
+	private SimulationParameters baseConfig;
+	private List<Dimension<?>> dimensions = new ArrayList<>();
+	
+	public ParameterSweep(SimulationParameters baseConfig) {
+		this.baseConfig = new SimulationParameters(baseConfig);
+	}
+	
+	/**
+	 * Adds a dimension setting each of the values with the setter, e.g. {@code SimulationParameters::withTimeout}
+	 */
+	public <T> ParameterSweep vary(BiFunction<SimulationParameters, T, SimulationParameters> setter, List<T> values) {
+		if (values.isEmpty()) {
+			throw new IllegalArgumentException("A dimension needs at least one value");
+		}
+		dimensions.add(new Dimension<>(setter, new ArrayList<>(values)));
+		size();
+		return this;
+	}
+	
+	public ParameterSweep randomSeeds(long... randomSeeds) {
+		return vary(SimulationParameters::withSeed, Arrays.stream(randomSeeds).boxed().collect(Collectors.toList()));
+	}
+	
+	public ParameterSweep numElevators(int... numElevators) {
+		return vary(SimulationParameters::withNumberOfElevators, boxed(numElevators));
+	}
+	
+	public ParameterSweep numFloors(int... numFloors) {
+		return vary(SimulationParameters::withNumberOfFloors, boxed(numFloors));
+	}
+	
+	public ParameterSweep numPassengers(int... numPassengers) {
+		return vary(SimulationParameters::withNumberOfPassengers, boxed(numPassengers));
+	}
+	
+	public ParameterSweep timeFactors(double... timeFactors) {
+		return vary(SimulationParameters::withTimeFactor, Arrays.stream(timeFactors).boxed().collect(Collectors.toList()));
+	}
+	
+	// Varargs arrays are copied element by element below, since passing them on is what -Xlint:varargs warns about
+	@SafeVarargs
+	public final ParameterSweep arrivalProcesses(Supplier<? extends ArrivalProcess>... arrivalProcesses) {
+		List<Supplier<? extends ArrivalProcess>> values = new ArrayList<>(arrivalProcesses.length);
+		for (Supplier<? extends ArrivalProcess> arrivalProcess : arrivalProcesses) {
+			values.add(arrivalProcess);
+		}
+		return vary(SimulationParameters::withArrivalProcess, values);
+	}
+	
+	@SafeVarargs
+	public final ParameterSweep elevatorSelectionStrategies(Supplier<? extends ElevatorSelectionStrategy>... strategies) {
+		List<Supplier<? extends ElevatorSelectionStrategy>> values = new ArrayList<>(strategies.length);
+		for (Supplier<? extends ElevatorSelectionStrategy> strategy : strategies) {
+			values.add(strategy);
+		}
+		return vary((BiFunction<SimulationParameters, Supplier<? extends ElevatorSelectionStrategy>, SimulationParameters>) 
+			SimulationParameters::withElevatorSelectionStrategy, values);
+	}
+	
+	@SafeVarargs
+	public final ParameterSweep embarkationStrategies(Supplier<? extends EmbarkationStrategy>... strategies) {
+		List<Supplier<? extends EmbarkationStrategy>> values = new ArrayList<>(strategies.length);
+		for (Supplier<? extends EmbarkationStrategy> strategy : strategies) {
+			values.add(strategy);
+		}
+		return vary((BiFunction<SimulationParameters, Supplier<? extends EmbarkationStrategy>, SimulationParameters>) 
+			SimulationParameters::withEmbarkationStrategy, values);
+	}
+	
+	@SafeVarargs
+	public final ParameterSweep floorQueueMergeStrategies(Supplier<? extends FloorQueueMergeStrategy>... strategies) {
+		List<Supplier<? extends FloorQueueMergeStrategy>> values = new ArrayList<>(strategies.length);
+		for (Supplier<? extends FloorQueueMergeStrategy> strategy : strategies) {
+			values.add(strategy);
+		}
+		return vary((BiFunction<SimulationParameters, Supplier<? extends FloorQueueMergeStrategy>, SimulationParameters>) 
+			SimulationParameters::withFloorQueueMergeStrategy, values);
+	}
+	
+	private static List<Integer> boxed(int[] values) {
+		return Arrays.stream(values).boxed().collect(Collectors.toList());
+	}
+	
+	/**
+	 * Number of combinations
+	 */
+	public long size() {
+		long size = 1;
+		for (Dimension<?> dimension : dimensions) {
+			size = Math.multiplyExact(size, dimension.values.size());
+		}
+		return size;
+	}
+	
+	/**
+	 * Creates the parameters of the combination with the index, between 0 and size - 1
+	 */
+	public SimulationParameters get(long index) {
+		if (index < 0 || index >= size()) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of " + size());
+		}
+		
+		SimulationParameters params = new SimulationParameters(baseConfig);
+		for (int i = dimensions.size() - 1; i >= 0; --i) {
+			Dimension<?> dimension = dimensions.get(i);
+			int numValues = dimension.values.size();
+			dimension.apply(params, (int) (index % numValues));
+			index /= numValues;
+		}
+		return params;
+	}
+	
+	@Override
+	public Iterator<SimulationParameters> iterator() {
+		return Spliterators.iterator(spliterator());
+	}
+	
+	@Override
+	public Spliterator<SimulationParameters> spliterator() {
+		return new SweepSpliterator(0, size());
+	}
+	
+	public Stream<SimulationParameters> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	public Stream<SimulationParameters> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+	
+	/**
+	 * Hands out the combinations of an index range, splitting it in halves
+	 */
+	private class SweepSpliterator implements Spliterator<SimulationParameters> {
+		
+		private long index;
+		private long end;
+		
+		SweepSpliterator(long index, long end) {
+			this.index = index;
+			this.end = end;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super SimulationParameters> action) {
+			if (index >= end) {
+				return false;
+			}
+			action.accept(get(index++));
+			return true;
+		}
+
+		@Override
+		public Spliterator<SimulationParameters> trySplit() {
+			long mid = index + (end - index) / 2;
+			if (mid == index) {
+				return null;
+			}
+			Spliterator<SimulationParameters> prefix = new SweepSpliterator(index, mid);
+			index = mid;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return end - index;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+		}
+	}
+}
@@ -0,0 +1,312 @@
+package elevator.simulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Results of deterministic runs, keyed by a fingerprint of everything that decides the outcome, so that 
+ * a point shared by several sweeps is only simulated once.
+ * 
+ * The fingerprint covers {@link SimulationParameters#getKey()} and every class file of the jar or directory 
+ * the simulation, strategy and arrival process classes are loaded from, so changing any class invalidates 
+ * the results computed with the old code. Results are kept in a small in-memory LRU and in a directory on disk, which is bounded in size by 
+ * evicting the least recently used files. The directory can be shared between processes.
+ * 
+ * Only discrete event runs with an arrival process that describes itself are cached. Real time runs 
+ * aren't deterministic and delay functions, legacy or in a DelayArrivalProcess, can't be fingerprinted. 
+ * Runs that write a journal or an arrival recording, or publish metrics or views, always run, since a 
+ * cached result wouldn't produce those.
+ * 
+ * Cached results are shared, don't modify them.
+ */
+public class ResultCache {
+
+	private static Logger logger = LoggerFactory.getLogger(ResultCache.class);
+	
+	// Bump when the file format or the meaning of results changes in ways the bytecode doesn't capture
+	private static final int FORMAT_VERSION = 1;
+	
+	// Hashes of the jars and class directories, by location. Computed once, like the classes are loaded once.
+	private static final Map<Path, String> CODE_HASHES = new ConcurrentHashMap<>();
+	
+	private Map<String, ElevatorSimulationResult> memory;
+	private Path directory;
+	private long maxDiskBytes;
+	private AtomicLong diskBytes = new AtomicLong();
+	
+	private AtomicLong memoryHits = new AtomicLong();
+	private AtomicLong diskHits = new AtomicLong();
+	private AtomicLong misses = new AtomicLong();
+	
+	/**
+	 * Creates a cache keeping up to memoryEntries results in memory and up to maxDiskBytes of results in 
+	 * the directory, which is created if needed
+	 */
+	public ResultCache(int memoryEntries, Path directory, long maxDiskBytes) throws IOException {
+		this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, ElevatorSimulationResult> eldest) {
+				return size() > memoryEntries;
+			}
+		};
+		this.directory = directory;
+		this.maxDiskBytes = maxDiskBytes;
+		
+		Files.createDirectories(directory);
+		try (Stream<Path> files = listFiles()) {
+			diskBytes.set(files.mapToLong(ResultCache::sizeOf).sum());
+		}
+	}
+	
+	/**
+	 * Returns the result of the run, simulating it only if it isn't cached
+	 */
+	public ElevatorSimulationResult run(SimulationParameters params) throws InterruptedException, TimeoutException {
+		String fingerprint = fingerprint(params);
+		if (fingerprint == null) {
+			return new ElevatorSimulator(params).run();
+		}
+		
+		ElevatorSimulationResult result = get(fingerprint);
+		if (result == null) {
+			result = new ElevatorSimulator(params).run();
+			put(fingerprint, result);
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the fingerprint of the parameters, or null if runs with them can't be cached 
+	 */
+	public static String fingerprint(SimulationParameters params) {
+		if (params.engine != SimulationEngine.DISCRETE_EVENT || !params.isKeyComplete()) {
+			return null;
+		}
+		if (params.journal != null || params.arrivalRecording != null || params.jmx || params.metricsPort != -1 
+				|| params.viewInterval != null) {
+			return null;
+		}
+		
+		Class<?> arrivalProcess = params.describedArrivalProcess.getClass();
+		StringBuilder sb = new StringBuilder();
+		sb.append(FORMAT_VERSION).append('\n').append(params.getKey()).append('\n');
+		for (Class<?> type : List.of(ElevatorSimulator.class, arrivalProcess, params.embarkationStrategyClass, 
+				params.elevatorSelectionStrategyClass, params.floorQueueMergeStrategyClass)) {
+			// Lambdas may capture anything
+			if (type.isSynthetic()) {
+				return null;
+			}
+			String hash = hashCodeSource(type);
+			if (hash == null) {
+				return null;
+			}
+			sb.append(hash).append('\n');
+		}
+		return sha256(sb.toString().getBytes(StandardCharsets.UTF_8));
+	}
+	
+	private ElevatorSimulationResult get(String fingerprint) {
+		synchronized (memory) {
+			ElevatorSimulationResult result = memory.get(fingerprint);
+			if (result != null) {
+				memoryHits.incrementAndGet();
+				return result;
+			}
+		}
+		
+		Path file = getFile(fingerprint);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			ElevatorSimulationResult result = ElevatorSimulationResult.readFrom(in);
+			// Eviction goes by modification time
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+			
+			diskHits.incrementAndGet();
+			synchronized (memory) {
+				memory.put(fingerprint, result);
+			}
+			return result;
+		} catch (NoSuchFileException e) {
+			misses.incrementAndGet();
+			return null;
+		} catch (IOException e) {
+			logger.warn("Failed to read cached result " + file, e);
+			misses.incrementAndGet();
+			return null;
+		}
+	}
+	
+	private void put(String fingerprint, ElevatorSimulationResult result) {
+		synchronized (memory) {
+			memory.put(fingerprint, result);
+		}
+		
+		Path file = getFile(fingerprint);
+		try {
+			Files.createDirectories(file.getParent());
+			
+			// Write to a temporary file first so that other processes never see a partial result
+			Path temp = Files.createTempFile(directory, fingerprint, ".tmp");
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				result.writeTo(out);
+			}
+			long size = Files.size(temp);
+			try {
+				Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+			
+			if (diskBytes.addAndGet(size) > maxDiskBytes) {
+				evict();
+			}
+		} catch (IOException e) {
+			logger.warn("Failed to write cached result " + file, e);
+		}
+	}
+	
+	/**
+	 * Deletes the least recently used files until the cache is below 90% of its maximum size
+	 */
+	private synchronized void evict() throws IOException {
+		List<Path> files;
+		try (Stream<Path> stream = listFiles()) {
+			files = stream.sorted(Comparator.comparing(ResultCache::lastModified)).collect(Collectors.toList());
+		}
+		
+		long size = files.stream().mapToLong(ResultCache::sizeOf).sum();
+		long target = maxDiskBytes / 10 * 9;
+		for (Path file : files) {
+			if (size <= target) {
+				break;
+			}
+			long fileSize = sizeOf(file);
+			Files.deleteIfExists(file);
+			size -= fileSize;
+		}
+		diskBytes.set(size);
+	}
+	
+	private Stream<Path> listFiles() throws IOException {
+		return Files.walk(directory, 2).filter(file -> file.getFileName().toString().endsWith(".result"));
+	}
+	
+	private Path getFile(String fingerprint) {
+		return directory.resolve(fingerprint.substring(0, 2)).resolve(fingerprint + ".result");
+	}
+	
+	private static long sizeOf(Path file) {
+		try {
+			return Files.size(file);
+		} catch (IOException e) {
+			// Deleted by another process
+			return 0;
+		}
+	}
+	
+	private static FileTime lastModified(Path file) {
+		try {
+			return Files.getLastModifiedTime(file);
+		} catch (IOException e) {
+			return FileTime.fromMillis(0);
+		}
+	}
+	
+	/**
+	 * Returns a hash of all class files in the jar or directory the class was loaded from, or null if it 
+	 * wasn't loaded from either
+	 */
+	private static String hashCodeSource(Class<?> type) {
+		CodeSource source = type.getProtectionDomain().getCodeSource();
+		if (source == null || source.getLocation() == null) {
+			return null;
+		}
+		Path location;
+		try {
+			location = Paths.get(source.getLocation().toURI());
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			return null;
+		}
+		return CODE_HASHES.computeIfAbsent(location, ResultCache::hashLocation);
+	}
+	
+	private static String hashLocation(Path location) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			if (Files.isDirectory(location)) {
+				List<Path> classFiles;
+				try (Stream<Path> files = Files.walk(location)) {
+					classFiles = files.filter(file -> file.getFileName().toString().endsWith(".class"))
+						.sorted(Comparator.comparing(file -> location.relativize(file).toString()))
+						.collect(Collectors.toList());
+				}
+				for (Path file : classFiles) {
+					digest.update(location.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+					digest.update(Files.readAllBytes(file));
+				}
+			} else {
+				try (InputStream in = Files.newInputStream(location)) {
+					byte[] buffer = new byte[1 << 16];
+					for (int n; (n = in.read(buffer)) > 0; ) {
+						digest.update(buffer, 0, n);
+					}
+				}
+			}
+			return toHex(digest.digest());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private static String sha256(byte[] bytes) {
+		try {
+			return toHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private static String toHex(byte[] digest) {
+		StringBuilder sb = new StringBuilder();
+		for (byte b : digest) {
+			sb.append(String.format("%02x", b));
+		}
+		return sb.toString();
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[Result cache %s. Memory hits = %d, disk hits = %d, misses = %d, disk usage = %d bytes]", 
+			directory, memoryHits.get(), diskHits.get(), misses.get(), diskBytes.get());
+	}
+}
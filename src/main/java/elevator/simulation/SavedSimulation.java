@@ -0,0 +1,49 @@
+package elevator.simulation;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import elevator.model.RandomStreams;
+import elevator.model.SystemState;
+import elevator.simulation.traffic.Arrival;
+import elevator.simulation.traffic.ArrivalProcess;
+
+/**
+ * The state of a discrete event simulation between two events, see {@link SimulationSnapshot}
+ */
+class SavedSimulation implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * An event of the queue: the next step of an elevator or the next passenger arrival
+	 */
+	static class PendingEvent implements Serializable {
+		
+		private static final long serialVersionUID = 1L;
+		
+		final long timeNanos;
+		final int elevator;
+		final Arrival arrival;
+		
+		PendingEvent(long timeNanos, int elevator, Arrival arrival) {
+			this.timeNanos = timeNanos;
+			this.elevator = elevator;
+			this.arrival = arrival;
+		}
+	}
+	
+	long timeNanos;
+	int numFloors;
+	int numElevators;
+	SystemState system;
+	RandomStreams randomStreams;
+	ArrivalProcess arrivals;
+	long numSubmitted;
+	LatencyHistogram waitTimes;
+	LatencyHistogram rideTimes;
+	
+	// In the order they will be run
+	List<PendingEvent> pendingEvents = new ArrayList<>();
+}
@@ -0,0 +1,392 @@
+package elevator.simulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.ProcessBuilder.Redirect;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs a {@link ParameterSweep} on several worker JVMs on this machine, for sweeps too large for the heap of
+ * one process.
+ *
+ * The sweep is split into shards of consecutive runs. Workers, see {@link SweepWorker}, connect to the
+ * coordinator over a loopback socket, take one shard at a time and stream back each result as it completes.
+ * When a worker dies, the rest of its shard is handed to another worker and a replacement worker is launched.
+ * A run that takes down its worker repeatedly is given up on, so the sweep always finishes.
+ *
+ * Parameters can't be sent to other JVMs, strategies and arrival processes are code, so every worker builds
+ * the sweep itself with the factory class and runs by index. The factory must build the same sweep in
+ * every JVM.
+ */
+public class ShardedSweepRunner {
+	private static Logger logger = LoggerFactory.getLogger(ShardedSweepRunner.class);
+
+	// Protocol. A worker sends MAGIC, its process id and the size of its sweep, then gets SHARD messages
+	// and sends a RESULT or FAILED message per run, until it gets DONE.
+	static final int MAGIC = 0x454c5357;
+	static final byte SHARD = 1;
+	static final byte DONE = 2;
+	static final byte RESULT = 3;
+	static final byte FAILED = 4;
+
+	private static final long WORKER_EXIT_TIMEOUT_SECONDS = 10;
+
+	private static class Shard {
+		long next;
+		final long end;
+		// Workers lost on the run at failedRun
+		long failedRun = -1;
+		int attempts;
+
+		Shard(long start, long end) {
+			this.next = start;
+			this.end = end;
+		}
+	}
+
+	private Class<? extends Supplier<ParameterSweep>> sweepFactory;
+	private int numWorkers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+	private int shardSize = 64;
+	private int maxAttempts = 3;
+	private List<String> jvmOptions = new ArrayList<>();
+
+	private ParameterSweep sweep;
+	private BiConsumer<SimulationParameters, ElevatorSimulationResult> listener;
+	private ServerSocket server;
+
+	// Guarded by this
+	private ArrayDeque<Shard> queue = new ArrayDeque<>();
+	private int numInFlight;
+	private long numCompleted;
+	private long numFailed;
+	private int numLaunched;
+	private int numStartupFailures;
+	private Set<Process> workers = new HashSet<>();
+	private Set<Long> connectedWorkers = new HashSet<>();
+	private Set<Socket> connections = new HashSet<>();
+	private RuntimeException failure;
+
+	/**
+	 * The factory class needs a public no-argument constructor and has to be on the class path of this JVM
+	 */
+	public ShardedSweepRunner(Class<? extends Supplier<ParameterSweep>> sweepFactory) {
+		this.sweepFactory = sweepFactory;
+	}
+
+	/**
+	 * Number of worker JVMs to keep running. Defaults to half the available processors.
+	 */
+	public ShardedSweepRunner withWorkers(int numWorkers) {
+		if (numWorkers < 1) {
+			throw new IllegalArgumentException("Invalid number of workers: " + numWorkers);
+		}
+		this.numWorkers = numWorkers;
+		return this;
+	}
+
+	/**
+	 * Number of runs a worker takes at a time
+	 */
+	public ShardedSweepRunner withShardSize(int shardSize) {
+		if (shardSize < 1) {
+			throw new IllegalArgumentException("Invalid shard size: " + shardSize);
+		}
+		this.shardSize = shardSize;
+		return this;
+	}
+
+	/**
+	 * Number of workers a run may take down before it is given up on
+	 */
+	public ShardedSweepRunner withMaxAttempts(int maxAttempts) {
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("Invalid number of attempts: " + maxAttempts);
+		}
+		this.maxAttempts = maxAttempts;
+		return this;
+	}
+
+	/**
+	 * Options for the worker JVMs, e.g. -Xmx2g
+	 */
+	public ShardedSweepRunner withJvmOptions(String... jvmOptions) {
+		this.jvmOptions = new ArrayList<>(Arrays.asList(jvmOptions));
+		return this;
+	}
+
+	/**
+	 * Runs the sweep, handing each result to the listener as it arrives. The listener is called from the
+	 * threads serving the workers, one call at a time. Runs that failed or were given up on are logged and
+	 * skipped.
+	 */
+	public void run(BiConsumer<SimulationParameters, ElevatorSimulationResult> listener) throws IOException, InterruptedException {
+		this.sweep = createSweep(sweepFactory.getName());
+		this.listener = listener;
+
+		long size = sweep.size();
+		for (long start = 0; start < size; start += shardSize) {
+			queue.add(new Shard(start, Math.min(start + shardSize, size)));
+		}
+		if (queue.isEmpty()) {
+			return;
+		}
+
+		server = new ServerSocket(0, numWorkers, InetAddress.getLoopbackAddress());
+		Thread acceptThread = new Thread(this::acceptLoop, "Sweep coordinator");
+		acceptThread.setDaemon(true);
+		acceptThread.start();
+
+		try {
+			synchronized (this) {
+				for (int i = 0; i < Math.min(numWorkers, queue.size()); ++i) {
+					launchWorker();
+				}
+				while (!isDone()) {
+					wait();
+				}
+				if (failure != null) {
+					throw failure;
+				}
+				logger.info("Sweep complete: {} runs, {} failed, {} workers launched", numCompleted, numFailed, numLaunched);
+			}
+			
+			// Workers exit by themselves once they are told the sweep is done
+			for (Process worker : getWorkers()) {
+				worker.waitFor(WORKER_EXIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			}
+		} finally {
+			server.close();
+			for (Process worker : getWorkers()) {
+				worker.destroy();
+			}
+			synchronized (this) {
+				for (Socket connection : connections) {
+					connection.close();
+				}
+			}
+		}
+	}
+
+	private synchronized List<Process> getWorkers() {
+		return new ArrayList<>(workers);
+	}
+
+	private boolean isDone() {
+		return failure != null || (queue.isEmpty() && numInFlight == 0);
+	}
+
+	private void launchWorker() {
+		String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+		List<String> command = new ArrayList<>();
+		command.add(java);
+		command.addAll(jvmOptions);
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(SweepWorker.class.getName());
+		command.add(String.valueOf(server.getLocalPort()));
+		command.add(sweepFactory.getName());
+
+		Process worker;
+		try {
+			worker = new ProcessBuilder(command)
+				.redirectErrorStream(true)
+				.redirectOutput(Redirect.INHERIT)
+				.start();
+		} catch (IOException e) {
+			fail(new IllegalStateException("Failed to launch worker", e));
+			return;
+		}
+		++numLaunched;
+		workers.add(worker);
+		worker.onExit().thenAccept(this::workerExited);
+	}
+
+	/**
+	 * Replaces workers that died while there is work left. Gives up if as many workers in a row died
+	 * before connecting as there are workers, since they will keep dying.
+	 */
+	private synchronized void workerExited(Process worker) {
+		workers.remove(worker);
+		if (isDone()) {
+			return;
+		}
+
+		logger.warn("Worker {} exited with status {}", worker.pid(), worker.exitValue());
+		if (!connectedWorkers.remove(worker.pid()) && ++numStartupFailures >= numWorkers) {
+			fail(new IllegalStateException(numStartupFailures + " workers died before connecting"));
+			return;
+		}
+		if (workers.size() < numWorkers) {
+			launchWorker();
+		}
+	}
+
+	private void acceptLoop() {
+		while (!server.isClosed()) {
+			try {
+				Socket connection = server.accept();
+				Thread thread = new Thread(() -> serve(connection), "Sweep worker connection");
+				thread.setDaemon(true);
+				thread.start();
+			} catch (IOException e) {
+				if (!server.isClosed()) {
+					logger.error("Failed to accept worker connection", e);
+				}
+			}
+		}
+	}
+
+	private void serve(Socket connection) {
+		Shard shard = null;
+		try (connection) {
+			synchronized (this) {
+				connections.add(connection);
+			}
+			DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a sweep worker");
+			}
+			long pid = in.readLong();
+			long size = in.readLong();
+			if (size != sweep.size()) {
+				fail(new IllegalStateException("Worker " + pid + " built a sweep of " + size + " runs instead of " + sweep.size()));
+				return;
+			}
+			synchronized (this) {
+				connectedWorkers.add(pid);
+				numStartupFailures = 0;
+			}
+
+			while ((shard = takeShard()) != null) {
+				out.writeByte(SHARD);
+				out.writeLong(shard.next);
+				out.writeLong(shard.end);
+				out.flush();
+
+				// Only this thread touches the shard while it is in flight
+				while (shard.next < shard.end) {
+					byte type = in.readByte();
+					long index = in.readLong();
+					if (index != shard.next) {
+						throw new IOException("Expected run " + shard.next + ", got " + index);
+					}
+					if (type == RESULT) {
+						ElevatorSimulationResult result = ElevatorSimulationResult.readFrom(in);
+						deliver(index, result);
+					} else if (type == FAILED) {
+						String message = in.readUTF();
+						logger.error("Simulation failed: {}\n{}", sweep.get(index), message);
+						synchronized (this) {
+							++numFailed;
+						}
+					} else {
+						throw new IOException("Unknown message " + type);
+					}
+					shard.next = index + 1;
+				}
+				completeShard();
+				shard = null;
+			}
+
+			out.writeByte(DONE);
+			out.flush();
+		} catch (IOException e) {
+			if (shard != null) {
+				retry(shard, e);
+			}
+		} catch (RuntimeException e) {
+			fail(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			synchronized (this) {
+				connections.remove(connection);
+			}
+		}
+	}
+
+	/**
+	 * Blocks until there is a shard to run, or returns null if the sweep is done. Waits while other shards
+	 * are in flight, since they come back if their worker dies.
+	 */
+	private synchronized Shard takeShard() throws InterruptedException {
+		while (queue.isEmpty() && !isDone()) {
+			wait();
+		}
+		if (isDone()) {
+			return null;
+		}
+		++numInFlight;
+		return queue.poll();
+	}
+
+	private synchronized void completeShard() {
+		--numInFlight;
+		notifyAll();
+	}
+
+	/**
+	 * Puts the rest of the shard of a lost worker back in the queue. The run the worker was on when it died is
+	 * skipped once it has taken down maxAttempts workers. Workers lost on earlier runs of the shard don't count.
+	 */
+	private synchronized void retry(Shard shard, IOException e) {
+		--numInFlight;
+		if (shard.next != shard.failedRun) {
+			shard.failedRun = shard.next;
+			shard.attempts = 0;
+		}
+		if (++shard.attempts >= maxAttempts) {
+			logger.error("Giving up on run {} after losing {} workers: {}", shard.next, shard.attempts, sweep.get(shard.next));
+			++numFailed;
+			++shard.next;
+		} else {
+			logger.warn("Lost worker at run {}, retrying runs {} to {}: {}", shard.next, shard.next, shard.end - 1, e.toString());
+		}
+		if (shard.next < shard.end) {
+			queue.addFirst(shard);
+		}
+		notifyAll();
+	}
+
+	private synchronized void deliver(long index, ElevatorSimulationResult result) {
+		++numCompleted;
+		listener.accept(sweep.get(index), result);
+	}
+
+	private synchronized void fail(RuntimeException e) {
+		if (failure == null) {
+			failure = e;
+		}
+		notifyAll();
+	}
+
+	static ParameterSweep createSweep(String factoryClassName) {
+		try {
+			@SuppressWarnings("unchecked")
+			Supplier<ParameterSweep> factory = (Supplier<ParameterSweep>) Class.forName(factoryClassName).getDeclaredConstructor().newInstance();
+			return factory.get();
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalArgumentException("Can't create sweep factory " + factoryClassName, e);
+		}
+	}
+}
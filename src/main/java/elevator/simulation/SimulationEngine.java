@@ -0,0 +1,16 @@
+package elevator.simulation;
+
+/**
+ * How simulated time is advanced
+ */
+public enum SimulationEngine {
+	/**
+	 * Each elevator runs on its own thread and sleeps in (accelerated) real time, used for visualization  
+	 */
+	REAL_TIME,
+	
+	/**
+	 * Single threaded event queue with a virtual clock, runs as fast as possible 
+	 */
+	DISCRETE_EVENT
+}
@@ -1,12 +1,19 @@
 package elevator.simulation;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.Locale;
 import java.util.Random;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import elevator.model.strategytypes.ElevatorSelectionStrategy;
 import elevator.model.strategytypes.EmbarkationStrategy;
 import elevator.model.strategytypes.FloorQueueMergeStrategy;
+import elevator.simulation.traffic.ArrivalProcess;
 
 public class SimulationParameters {
 	long randomSeed = System.currentTimeMillis();
@@ -15,11 +22,31 @@ public class SimulationParameters {
 	int numFloors;
 	int numElevators;
 	Function<Random, Duration> delayBetweenPassengers;
+	
+	// If set, replaces the number of passengers and the delay between them
+	Supplier<? extends ArrivalProcess> arrivalProcess;
+	Path arrivalRecording;
+	Path journal;
 	Duration timeout = Duration.ofMinutes(10);
-	EmbarkationStrategy embarkationStrategy;
-	ElevatorSelectionStrategy elevatorSelectionStrategy;
-	FloorQueueMergeStrategy floorQueueMergeStrategy;
+	
+	// Strategies are created anew for each simulation run so that runs don't share state
+	Supplier<? extends EmbarkationStrategy> embarkationStrategy;
+	Supplier<? extends ElevatorSelectionStrategy> elevatorSelectionStrategy;
+	Supplier<? extends FloorQueueMergeStrategy> floorQueueMergeStrategy;
+	
+	// Taken from one instance when the suppliers are set, so that describing the parameters doesn't create new ones
+	ArrivalProcess describedArrivalProcess;
+	Class<?> embarkationStrategyClass;
+	Class<?> elevatorSelectionStrategyClass;
+	Class<?> floorQueueMergeStrategyClass;
 	boolean debugOutput;
+	boolean jmx;
+	int metricsPort = -1;
+	Duration viewInterval;
+	ResultCache resultCache;
+	SimulationSnapshot snapshot;
+	SimulationEngine engine = SimulationEngine.DISCRETE_EVENT;
+	boolean virtualThreads;
 	
 	public SimulationParameters() {
 	}
@@ -31,18 +58,95 @@ public class SimulationParameters {
 		this.numFloors = copy.numFloors;
 		this.numElevators = copy.numElevators;
 		this.delayBetweenPassengers = copy.delayBetweenPassengers;
+		this.arrivalProcess = copy.arrivalProcess;
+		this.arrivalRecording = copy.arrivalRecording;
+		this.journal = copy.journal;
 		this.timeout = copy.timeout;
 		this.embarkationStrategy = copy.embarkationStrategy;
 		this.elevatorSelectionStrategy = copy.elevatorSelectionStrategy;
 		this.floorQueueMergeStrategy = copy.floorQueueMergeStrategy;
+		this.describedArrivalProcess = copy.describedArrivalProcess;
+		this.embarkationStrategyClass = copy.embarkationStrategyClass;
+		this.elevatorSelectionStrategyClass = copy.elevatorSelectionStrategyClass;
+		this.floorQueueMergeStrategyClass = copy.floorQueueMergeStrategyClass;
 		this.debugOutput = copy.debugOutput;
+		this.jmx = copy.jmx;
+		this.metricsPort = copy.metricsPort;
+		this.viewInterval = copy.viewInterval;
+		this.resultCache = copy.resultCache;
+		this.snapshot = copy.snapshot;
+		this.engine = copy.engine;
+		this.virtualThreads = copy.virtualThreads;
 	}
 	
 	@Override
 	public String toString() {
-		return String.format("[Seed = %d, NumPassengers = %d, Floors = %d, Elevators = %d, EmbarkStrat = %s, ElevatorStrat = %s, MergeStrat = %s]",
-				randomSeed, numPassengers, numFloors, numElevators, embarkationStrategy.getClass().getSimpleName(), 
-				elevatorSelectionStrategy.getClass().getSimpleName(), floorQueueMergeStrategy.getClass().getSimpleName());
+		return String.format("[Seed = %d, Passengers = %s, Floors = %d, Elevators = %d, EmbarkStrat = %s, ElevatorStrat = %s, MergeStrat = %s, Engine = %s]",
+				randomSeed, arrivalProcess == null ? numPassengers : getStrategyName(describedArrivalProcess.getClass()), numFloors, numElevators, 
+				getStrategyName(embarkationStrategyClass), getStrategyName(elevatorSelectionStrategyClass), getStrategyName(floorQueueMergeStrategyClass), engine);
+	}
+	
+	/**
+	 * Describes everything that decides the outcome of a run, the same in every JVM, so that results can be 
+	 * matched up with parameters across restarts.
+	 * 
+	 * Strategies are described by class and arrival processes by their getKey(), which defaults to toString(). 
+	 * Delay functions can't be described, so parameters differing only in them share a key, see 
+	 * {@link #isKeyComplete()}.
+	 */
+	public String getKey() {
+		return String.format(Locale.ROOT, "seed=%d;floors=%d;elevators=%d;arrivals=%s;timeFactor=%s;embarkation=%s;selection=%s;merge=%s;engine=%s",
+			randomSeed, numFloors, numElevators, 
+			arrivalProcess == null ? "Delay(" + numPassengers + " passengers)" : describedArrivalProcess.getKey(),
+			timeFactor, getStrategyClass(embarkationStrategyClass), getStrategyClass(elevatorSelectionStrategyClass), 
+			getStrategyClass(floorQueueMergeStrategyClass), engine)
+			+ (snapshot == null ? "" : ";snapshot=" + snapshot.getHash());
+	}
+	
+	/**
+	 * Returns false if parameters differing in something that decides the outcome may share the key, i.e. 
+	 * with the legacy delay between passengers, or an arrival process that can't be described or implements 
+	 * neither getKey() nor toString()
+	 */
+	public boolean isKeyComplete() {
+		if (arrivalProcess == null || !describedArrivalProcess.isDescribable()) {
+			return false;
+		}
+		Class<?> type = describedArrivalProcess.getClass();
+		try {
+			return type.getMethod("getKey").getDeclaringClass() != ArrivalProcess.class 
+				|| type.getMethod("toString").getDeclaringClass() != Object.class;
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * A short hash of {@link #getKey()}
+	 */
+	public String getHash() {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(getKey().getBytes(StandardCharsets.UTF_8));
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < 8; ++i) {
+				sb.append(String.format("%02x", digest[i]));
+			}
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private static String getStrategyClass(Class<?> strategy) {
+		return strategy == null ? "null" : strategy.getName();
+	}
+	
+	private static String getStrategyName(Class<?> strategy) {
+		return strategy == null ? "null" : strategy.getSimpleName();
+	}
+	
+	private static Class<?> getSuppliedClass(Supplier<?> supplier) {
+		return supplier == null ? null : supplier.get().getClass();
 	}
 
 
@@ -56,6 +160,31 @@ public class SimulationParameters {
 		return this;
 	}
 	
+	/**
+	 * Creates a new arrival process for every run, used instead of the number of passengers and the delay between them
+	 */
+	public SimulationParameters withArrivalProcess(Supplier<? extends ArrivalProcess> arrivalProcess) {
+		this.arrivalProcess = arrivalProcess;
+		this.describedArrivalProcess = arrivalProcess == null ? null : arrivalProcess.get();
+		return this;
+	}
+	
+	/**
+	 * Records the arrivals of the run to a binary trace file, which can be replayed with a TraceArrivalProcess
+	 */
+	public SimulationParameters withArrivalRecording(Path arrivalRecording) {
+		this.arrivalRecording = arrivalRecording;
+		return this;
+	}
+	
+	/**
+	 * Records the events of the run to a binary journal file, see EventJournal
+	 */
+	public SimulationParameters withJournal(Path journal) {
+		this.journal = journal;
+		return this;
+	}
+	
 	public SimulationParameters withNumberOfPassengers(int numPassengers) {
 		this.numPassengers = numPassengers;
 		return this;
@@ -76,18 +205,51 @@ public class SimulationParameters {
 		return this;
 	}
 	
+	/**
+	 * Uses the same strategy instance for every run, which must then be thread safe if runs are made in parallel
+	 */
 	public SimulationParameters withFloorQueueMergeStrategy(FloorQueueMergeStrategy strategy) {
+		return withFloorQueueMergeStrategy(() -> strategy);
+	}
+	
+	/**
+	 * Creates a new strategy instance for every run
+	 */
+	public SimulationParameters withFloorQueueMergeStrategy(Supplier<? extends FloorQueueMergeStrategy> strategy) {
 		floorQueueMergeStrategy = strategy;
+		floorQueueMergeStrategyClass = getSuppliedClass(strategy);
 		return this;
 	}
 	
+	/**
+	 * Uses the same strategy instance for every run, which must then be thread safe if runs are made in parallel
+	 */
 	public SimulationParameters withElevatorSelectionStrategy(ElevatorSelectionStrategy strategy) {
+		return withElevatorSelectionStrategy(() -> strategy);
+	}
+	
+	/**
+	 * Creates a new strategy instance for every run
+	 */
+	public SimulationParameters withElevatorSelectionStrategy(Supplier<? extends ElevatorSelectionStrategy> strategy) {
 		elevatorSelectionStrategy = strategy;
+		elevatorSelectionStrategyClass = getSuppliedClass(strategy);
 		return this;
 	}
 
+	/**
+	 * Uses the same strategy instance for every run, which must then be thread safe if runs are made in parallel
+	 */
 	public SimulationParameters withEmbarkationStrategy(EmbarkationStrategy strategy) {
+		return withEmbarkationStrategy(() -> strategy);
+	}
+	
+	/**
+	 * Creates a new strategy instance for every run
+	 */
+	public SimulationParameters withEmbarkationStrategy(Supplier<? extends EmbarkationStrategy> strategy) {
 		embarkationStrategy = strategy;
+		embarkationStrategyClass = getSuppliedClass(strategy);
 		return this;
 	}
 
@@ -101,6 +263,66 @@ public class SimulationParameters {
 		return this;
 	}
 	
+	/**
+	 * Registers the metrics of the run as MBeans while it runs
+	 */
+	public SimulationParameters withJmx(boolean jmx) {
+		this.jmx = jmx;
+		return this;
+	}
+	
+	/**
+	 * Serves the metrics of the run on http://localhost:port/metrics while it runs. 0 picks a free port, -1 turns it off.
+	 */
+	public SimulationParameters withMetricsPort(int metricsPort) {
+		this.metricsPort = metricsPort;
+		return this;
+	}
+	
+	/**
+	 * Publishes a view of the elevators and floors at the interval while the simulation runs, see 
+	 * ElevatorSimulator.getView(). Off by default.
+	 */
+	public SimulationParameters withViewInterval(Duration viewInterval) {
+		this.viewInterval = viewInterval;
+		return this;
+	}
+	
+	/**
+	 * Lets the batch runner reuse the results of identical deterministic runs, see ResultCache
+	 */
+	public SimulationParameters withResultCache(ResultCache resultCache) {
+		this.resultCache = resultCache;
+		return this;
+	}
+	
+	/**
+	 * Continues from a snapshot instead of starting from an empty building, see ElevatorSimulator.snapshot(). 
+	 * The number of floors and elevators must match the snapshot. The random generator and arrival process 
+	 * are taken over from the snapshot, so the seed and passenger settings are ignored, while the strategies 
+	 * can differ from the ones of the snapshotted run. Passengers already waiting keep their assigned elevators.
+	 */
+	public SimulationParameters withSnapshot(SimulationSnapshot snapshot) {
+		this.snapshot = snapshot;
+		return this;
+	}
+	
+	public SimulationParameters withEngine(SimulationEngine engine) {
+		this.engine = engine;
+		return this;
+	}
+	
+	/**
+	 * Runs the elevators and passenger deployment of a real-time simulation on virtual threads, so that many 
+	 * large simulations fit in one process. The clock then parks sleeping threads all the way to their 
+	 * deadline instead of spinning near it, which costs some accuracy at high time factors. Needs a build 
+	 * with the java21 profile. Ignored by discrete event simulations, which run on the calling thread.
+	 */
+	public SimulationParameters withVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+		return this;
+	}
+	
 	
 
 }
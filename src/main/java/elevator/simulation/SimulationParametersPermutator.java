@@ -1,8 +1,12 @@
 package elevator.simulation;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
+/**
+ * Permutes seeds, number of elevators and number of floors into a list. See {@link ParameterSweep} for 
+ * varying any parameter without building a list.
+ */
 public class SimulationParametersPermutator {
 
 	private long[] randomSeeds;
@@ -31,33 +35,20 @@ public class SimulationParametersPermutator {
 	}
 
 	public List<SimulationParameters> permute() {
+		ParameterSweep sweep = new ParameterSweep(baseConfig);
 		
-		List<SimulationParameters> list = new ArrayList<>();
-		
-		if (randomSeeds == null) {
-			randomSeeds = new long[] { baseConfig.randomSeed };
+		if (randomSeeds != null) {
+			sweep.randomSeeds(randomSeeds);
 		}
 		
-		if (numElevators == null) {
-			numElevators = new int[] { baseConfig.numElevators };
+		if (numElevators != null) {
+			sweep.numElevators(numElevators);
 		}
 
-		if (numFloors == null) {
-			numFloors = new int[] { baseConfig.numFloors };
-		}
-		
-		for (long randomSeed : randomSeeds) {
-			for (int numElevator : numElevators) {
-				for (int numFloor : numFloors) {
-					list.add(new SimulationParameters(baseConfig)
-						.withNumberOfFloors(numFloor)
-						.withNumberOfElevators(numElevator)
-						.withSeed(randomSeed));
-				}
-			}
+		if (numFloors != null) {
+			sweep.numFloors(numFloors);
 		}
 		
-
-		return list;
+		return sweep.stream().collect(Collectors.toList());
 	}
 }
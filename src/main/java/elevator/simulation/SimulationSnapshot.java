@@ -0,0 +1,122 @@
+package elevator.simulation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+
+/**
+ * The full state of a discrete event simulation at a point in simulated time: floors, elevators, passengers 
+ * in flight, pending events, the random streams, the arrival process and the statistics so far.
+ * 
+ * Any number of simulations can continue from a snapshot, each with its own strategies, see 
+ * {@link SimulationParameters#withSnapshot(SimulationSnapshot)}. Combined with a {@link ParameterSweep} 
+ * over strategies, this compares strategies from a specific moment without simulating the shared 
+ * prefix again. 
+ * 
+ * The state is held in serialized form, so a snapshot is immutable and can be saved to a file.
+ */
+public class SimulationSnapshot {
+
+	private byte[] data;
+	private Duration time;
+	private int numFloors;
+	private int numElevators;
+	private String hash;
+	
+	SimulationSnapshot(SavedSimulation saved) {
+		try (ByteArrayOutputStream bytes = new ByteArrayOutputStream(); 
+				ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(saved);
+			out.flush();
+			data = bytes.toByteArray();
+		} catch (NotSerializableException e) {
+			throw new IllegalStateException("Simulation can't be snapshotted, not serializable: " + e.getMessage(), e);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		
+		time = Duration.ofNanos(saved.timeNanos);
+		numFloors = saved.numFloors;
+		numElevators = saved.numElevators;
+	}
+	
+	private SimulationSnapshot(byte[] data) {
+		this.data = data;
+		SavedSimulation saved = restore();
+		time = Duration.ofNanos(saved.timeNanos);
+		numFloors = saved.numFloors;
+		numElevators = saved.numElevators;
+	}
+	
+	/**
+	 * Simulated time at which the snapshot was taken
+	 */
+	public Duration getTime() {
+		return time;
+	}
+	
+	public int getNumberOfFloors() {
+		return numFloors;
+	}
+	
+	public int getNumberOfElevators() {
+		return numElevators;
+	}
+	
+	/**
+	 * Returns a new copy of the saved state
+	 */
+	SavedSimulation restore() {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+			return (SavedSimulation) in.readObject();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * A hash of the state, identifying the snapshot in result stores and caches
+	 */
+	public synchronized String getHash() {
+		if (hash == null) {
+			try {
+				byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+				StringBuilder sb = new StringBuilder();
+				for (int i = 0; i < 8; ++i) {
+					sb.append(String.format("%02x", digest[i]));
+				}
+				hash = sb.toString();
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		return hash;
+	}
+	
+	public void save(Path path) throws IOException {
+		Files.write(path, data);
+	}
+	
+	/**
+	 * Loads a snapshot saved by the same version of the simulator
+	 */
+	public static SimulationSnapshot load(Path path) throws IOException {
+		return new SimulationSnapshot(Files.readAllBytes(path));
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[Snapshot at %s, %d floors, %d elevators, %d bytes]", time, numFloors, numElevators, data.length);
+	}
+}
@@ -0,0 +1,80 @@
+package elevator.simulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A worker JVM of a {@link ShardedSweepRunner}. Builds the sweep with the factory class, then runs the shards
+ * the coordinator hands out until it is told the sweep is done.
+ *
+ * Arguments: coordinator port, sweep factory class name
+ */
+public class SweepWorker {
+	private static Logger logger = LoggerFactory.getLogger(SweepWorker.class);
+
+	public static void main(String[] args) throws Exception {
+		if (args.length != 2) {
+			System.err.println("Usage: SweepWorker <coordinator port> <sweep factory class>");
+			System.exit(2);
+		}
+		int port = Integer.parseInt(args[0]);
+		ParameterSweep sweep = ShardedSweepRunner.createSweep(args[1]);
+
+		try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+			out.writeInt(ShardedSweepRunner.MAGIC);
+			out.writeLong(ProcessHandle.current().pid());
+			out.writeLong(sweep.size());
+			out.flush();
+
+			while (readMessage(in) == ShardedSweepRunner.SHARD) {
+				long start = in.readLong();
+				long end = in.readLong();
+				logger.info("Running {} to {}", start, end - 1);
+
+				for (long index = start; index < end; ++index) {
+					SimulationParameters params = sweep.get(index);
+					ElevatorSimulationResult result;
+					try {
+						result = BatchRunner.simulate(params);
+					} catch (InterruptedException e) {
+						throw e;
+					} catch (Exception e) {
+						logger.error("Simulation failed: " + params, e);
+						out.writeByte(ShardedSweepRunner.FAILED);
+						out.writeLong(index);
+						out.writeUTF(e.toString());
+						out.flush();
+						continue;
+					}
+					out.writeByte(ShardedSweepRunner.RESULT);
+					out.writeLong(index);
+					result.writeTo(out);
+					out.flush();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * The coordinator may close the connection instead of sending DONE once the sweep is done
+	 */
+	private static byte readMessage(DataInputStream in) throws IOException {
+		try {
+			return in.readByte();
+		} catch (EOFException e) {
+			return ShardedSweepRunner.DONE;
+		}
+	}
+}
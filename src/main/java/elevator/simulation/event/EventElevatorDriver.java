@@ -0,0 +1,104 @@
+package elevator.simulation.event;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import elevator.model.Elevator;
+import elevator.model.ElevatorDriver;
+
+/**
+ * Drives elevators from an {@link EventQueue}, scheduling each step when the previous one has completed.
+ * 
+ * Idle elevators have no pending events and are rescheduled when they are woken up.
+ */
+public class EventElevatorDriver implements ElevatorDriver {
+
+	private EventQueue events;
+	private Set<Elevator> scheduled = Collections.newSetFromMap(new IdentityHashMap<>());
+	private Set<Elevator> stopped = Collections.newSetFromMap(new IdentityHashMap<>());
+	
+	public EventElevatorDriver(EventQueue events) {
+		this.events = events;
+	}
+	
+	@Override
+	public void start(Elevator elevator) {
+		wakeUp(elevator);
+	}
+
+	@Override
+	public void wakeUp(Elevator elevator) {
+		if (stopped.contains(elevator)) {
+			return;
+		}
+		if (scheduled.add(elevator)) {
+			events.schedule(Duration.ZERO, new StepEvent(elevator));
+		}
+	}
+	
+	/**
+	 * Schedules the next step of an elevator, e.g. when continuing from a snapshot. Call 
+	 * {@link #clearScheduled()} first if the event queue has been reset.
+	 */
+	public void scheduleStep(Elevator elevator, Duration delay) {
+		if (!scheduled.add(elevator)) {
+			throw new IllegalStateException("Elevator " + elevator.getName() + " already has a step scheduled");
+		}
+		events.schedule(delay, new StepEvent(elevator));
+	}
+	
+	/**
+	 * Forgets about scheduled steps, for when the events have been dropped from the queue
+	 */
+	public void clearScheduled() {
+		scheduled.clear();
+	}
+	
+	/**
+	 * Returns the elevator stepped by an event of the queue, or null if it isn't a step event of this driver
+	 */
+	public Elevator getSteppedElevator(Runnable event) {
+		if (event instanceof StepEvent && ((StepEvent) event).driver() == this) {
+			return ((StepEvent) event).elevator;
+		}
+		return null;
+	}
+
+	@Override
+	public void stop(Elevator elevator) {
+		stopped.add(elevator);
+	}
+	
+	private void step(Elevator elevator) {
+		if (stopped.contains(elevator)) {
+			scheduled.remove(elevator);
+			return;
+		}
+		
+		Duration stepTime = elevator.step();
+		if (stepTime == null) {
+			scheduled.remove(elevator);
+		} else {
+			events.schedule(stepTime, new StepEvent(elevator));
+		}
+	}
+	
+	private class StepEvent implements Runnable {
+		final Elevator elevator;
+		
+		StepEvent(Elevator elevator) {
+			this.elevator = elevator;
+		}
+		
+		EventElevatorDriver driver() {
+			return EventElevatorDriver.this;
+		}
+		
+		@Override
+		public void run() {
+			step(elevator);
+		}
+	}
+}
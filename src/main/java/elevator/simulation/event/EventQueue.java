@@ -0,0 +1,97 @@
+package elevator.simulation.event;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.function.BiConsumer;
+
+/**
+ * Priority queue of timestamped events driving a {@link VirtualClock}.
+ * 
+ * Events scheduled for the same point in time are run in the order they were scheduled, which
+ * makes a simulation deterministic given the same random seed. Not thread safe, all events are run
+ * on the thread calling {@link #runNext()}.
+ */
+public class EventQueue {
+
+	private static class Event implements Comparable<Event> {
+		final long time;
+		final long sequence;
+		final Runnable action;
+		
+		Event(long time, long sequence, Runnable action) {
+			this.time = time;
+			this.sequence = sequence;
+			this.action = action;
+		}
+
+		@Override
+		public int compareTo(Event o) {
+			int cmp = Long.compare(time, o.time);
+			return cmp != 0 ? cmp : Long.compare(sequence, o.sequence);
+		}
+	}
+	
+	private PriorityQueue<Event> queue = new PriorityQueue<>();
+	private VirtualClock clock = new VirtualClock();
+	private long sequence;
+	
+	public VirtualClock getClock() {
+		return clock;
+	}
+	
+	/**
+	 * Schedules an action to be run when the specified amount of simulated time has passed
+	 */
+	public void schedule(Duration delay, Runnable action) {
+		queue.add(new Event(clock.nowNanos() + delay.toNanos(), sequence++, action));
+	}
+	
+	/**
+	 * Advances the clock to the next event and runs it. Returns false if there are no more events.
+	 */
+	public boolean runNext() {
+		Event event = queue.poll();
+		if (event == null) {
+			return false;
+		}
+		clock.advanceTo(event.time);
+		event.action.run();
+		return true;
+	}
+	
+	/**
+	 * Returns the time of the next event, or null if there are no more events
+	 */
+	public Duration getNextEventTime() {
+		Event event = queue.peek();
+		return event == null ? null : Duration.ofNanos(event.time);
+	}
+	
+	/**
+	 * Passes the pending events to the consumer in the order they will be run
+	 */
+	public void forEachPending(BiConsumer<Duration, Runnable> consumer) {
+		Event[] pending = queue.toArray(new Event[0]);
+		Arrays.sort(pending);
+		for (Event event : pending) {
+			consumer.accept(Duration.ofNanos(event.time), event.action);
+		}
+	}
+	
+	/**
+	 * Drops all pending events and moves the clock to the specified time, e.g. to continue from a snapshot
+	 */
+	public void reset(Duration time) {
+		queue.clear();
+		clock.advanceTo(time.toNanos());
+	}
+	
+	public boolean isEmpty() {
+		return queue.isEmpty();
+	}
+	
+	public int size() {
+		return queue.size();
+	}
+}
@@ -0,0 +1,40 @@
+package elevator.simulation.event;
+
+import java.time.Duration;
+
+import elevator.model.Clock;
+
+/**
+ * A clock that only advances when the event queue moves on to the next event
+ */
+public class VirtualClock implements Clock {
+
+	private long nowNanos;
+	
+	@Override
+	public Duration now() {
+		return Duration.ofNanos(nowNanos);
+	}
+	
+	@Override
+	public long nowNanos() {
+		return nowNanos;
+	}
+	
+	void advanceTo(long nanos) {
+		if (nanos < nowNanos) {
+			throw new IllegalArgumentException("Virtual time can't go backwards");
+		}
+		nowNanos = nanos;
+	}
+
+	@Override
+	public void sleep(Duration dur) {
+		throw new UnsupportedOperationException("A virtual clock can't block, schedule an event instead");
+	}
+	
+	@Override
+	public void sleepUntil(Duration time) {
+		throw new UnsupportedOperationException("A virtual clock can't block, schedule an event instead");
+	}
+}
@@ -0,0 +1,61 @@
+package elevator.simulation.metrics;
+
+import elevator.model.Elevator;
+import elevator.model.Environment;
+
+/**
+ * Reads the metrics of an elevator from the counters it keeps
+ */
+class ElevatorMetrics implements ElevatorMetricsMXBean {
+
+	private Elevator elevator;
+	private Environment env;
+	
+	ElevatorMetrics(Elevator elevator, Environment env) {
+		this.elevator = elevator;
+		this.env = env;
+	}
+	
+	Elevator getElevator() {
+		return elevator;
+	}
+	
+	@Override
+	public int getCurrentFloor() {
+		return elevator.getCurrentFloor();
+	}
+	
+	@Override
+	public String getState() {
+		return elevator.getState().name();
+	}
+
+	@Override
+	public double getUtilization() {
+		long now = env.getClock().now().toNanos();
+		if (now <= 0) {
+			return 0;
+		}
+		return Math.min(1, (double) elevator.getBusyTime().toNanos() / now);
+	}
+
+	@Override
+	public long getStops() {
+		return elevator.getNumberOfStops();
+	}
+
+	@Override
+	public int getLoad() {
+		return elevator.getNumberOfPassengers();
+	}
+	
+	@Override
+	public long getPassengersCarried() {
+		return elevator.getNumberOfPassengersCarried();
+	}
+
+	@Override
+	public int getQueueLength() {
+		return elevator.getNumberOfQueuedFloors();
+	}
+}
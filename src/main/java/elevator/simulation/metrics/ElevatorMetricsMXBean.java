@@ -0,0 +1,27 @@
+package elevator.simulation.metrics;
+
+/**
+ * Live metrics of one elevator
+ */
+public interface ElevatorMetricsMXBean {
+	
+	int getCurrentFloor();
+	
+	String getState();
+	
+	/**
+	 * Share of the simulated time the elevator has been busy, between 0 and 1
+	 */
+	double getUtilization();
+	
+	long getStops();
+	
+	/**
+	 * Number of passengers aboard
+	 */
+	int getLoad();
+	
+	long getPassengersCarried();
+	
+	int getQueueLength();
+}
@@ -0,0 +1,62 @@
+package elevator.simulation.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the metrics of a run as plain text on http://localhost:port/metrics. Only listens on the 
+ * loopback interface.
+ */
+public class MetricsHttpExporter {
+
+	private MetricsRegistry registry;
+	private HttpServer server;
+	
+	public MetricsHttpExporter(MetricsRegistry registry) {
+		this.registry = registry;
+	}
+	
+	/**
+	 * Starts serving on the port, 0 for any free port. Returns the port.
+	 */
+	public int start(int port) throws IOException {
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.createContext("/metrics", this::handle);
+		server.start();
+		return server.getAddress().getPort();
+	}
+	
+	public void stop() {
+		if (server != null) {
+			server.stop(0);
+			server = null;
+		}
+	}
+	
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			if (!"GET".equals(exchange.getRequestMethod())) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			
+			StringBuilder sb = new StringBuilder();
+			registry.writeText(sb);
+			byte[] body = sb.toString().getBytes(StandardCharsets.UTF_8);
+			
+			exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package elevator.simulation.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import elevator.model.Elevator;
+import elevator.model.Environment;
+
+/**
+ * Metrics of a run: per elevator utilization, stops, load and queue length, per floor waiting passengers, 
+ * and arrival and completion rates.
+ * 
+ * The model keeps running counters, so reading the metrics is cheap and can be done from any thread 
+ * while the simulation runs. The metrics can be exposed as MBeans and in a plain text format, see 
+ * {@link MetricsHttpExporter}.
+ */
+public class MetricsRegistry {
+
+	private static Logger logger = LoggerFactory.getLogger(MetricsRegistry.class);
+	
+	private SimulationMetrics simulation;
+	private List<ElevatorMetrics> elevators = new ArrayList<>();
+	private List<ObjectName> registeredNames = new ArrayList<>();
+	
+	public MetricsRegistry(Environment env) {
+		simulation = new SimulationMetrics(env);
+		for (Elevator elevator : env.getElevators()) {
+			elevators.add(new ElevatorMetrics(elevator, env));
+		}
+	}
+	
+	public SimulationMetricsMXBean getSimulationMetrics() {
+		return simulation;
+	}
+	
+	public List<? extends ElevatorMetricsMXBean> getElevatorMetrics() {
+		return elevators;
+	}
+	
+	/**
+	 * Registers the metrics with the platform MBean server under the "elevator" domain. The run name 
+	 * tells simultaneous runs apart.
+	 */
+	public synchronized void registerMBeans(String runName) throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		String run = ObjectName.quote(runName);
+		
+		register(server, new ObjectName("elevator:type=Simulation,run=" + run), simulation);
+		for (ElevatorMetrics metrics : elevators) {
+			register(server, new ObjectName("elevator:type=Elevator,run=" + run + ",name=" + metrics.getElevator().getName()), metrics);
+		}
+	}
+	
+	private void register(MBeanServer server, ObjectName name, Object mbean) throws JMException {
+		server.registerMBean(mbean, name);
+		registeredNames.add(name);
+	}
+	
+	public synchronized void unregisterMBeans() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		for (ObjectName name : registeredNames) {
+			try {
+				server.unregisterMBean(name);
+			} catch (JMException e) {
+				logger.warn("Failed to unregister " + name, e);
+			}
+		}
+		registeredNames.clear();
+	}
+	
+	/**
+	 * Writes the metrics in the Prometheus text format, one metric per line
+	 */
+	public void writeText(StringBuilder sb) {
+		appendMetric(sb, "elevator_simulated_seconds", null, simulation.getSimulatedSeconds());
+		appendMetric(sb, "elevator_passengers_submitted_total", null, simulation.getPassengersSubmitted());
+		appendMetric(sb, "elevator_passengers_arrived_total", null, simulation.getPassengersArrived());
+		appendMetric(sb, "elevator_passengers_in_transit", null, simulation.getPassengersInTransit());
+		appendMetric(sb, "elevator_arrival_rate_per_minute", null, simulation.getArrivalRate());
+		appendMetric(sb, "elevator_completion_rate_per_minute", null, simulation.getCompletionRate());
+		
+		int[] waiting = simulation.getWaitingPassengersPerFloor();
+		for (int floor = 0; floor < waiting.length; ++floor) {
+			appendMetric(sb, "elevator_floor_waiting_passengers", "floor=\"" + floor + "\"", waiting[floor]);
+		}
+		
+		for (ElevatorMetrics metrics : elevators) {
+			String label = "elevator=\"" + metrics.getElevator().getName() + "\"";
+			appendMetric(sb, "elevator_current_floor", label, metrics.getCurrentFloor());
+			appendMetric(sb, "elevator_utilization", label, metrics.getUtilization());
+			appendMetric(sb, "elevator_stops_total", label, metrics.getStops());
+			appendMetric(sb, "elevator_load", label, metrics.getLoad());
+			appendMetric(sb, "elevator_passengers_carried_total", label, metrics.getPassengersCarried());
+			appendMetric(sb, "elevator_queue_length", label, metrics.getQueueLength());
+		}
+	}
+	
+	private static void appendMetric(StringBuilder sb, String name, String labels, double value) {
+		sb.append(name);
+		if (labels != null) {
+			sb.append('{').append(labels).append('}');
+		}
+		sb.append(' ');
+		if (value == (long) value) {
+			sb.append((long) value);
+		} else {
+			sb.append(String.format(Locale.ROOT, "%.4f", value));
+		}
+		sb.append('\n');
+	}
+	
+	/**
+	 * A one line summary of the run
+	 */
+	public String getSummary() {
+		double utilization = 0;
+		for (ElevatorMetrics metrics : elevators) {
+			utilization += metrics.getUtilization();
+		}
+		
+		return String.format(Locale.ROOT, 
+			"Simulated %.0fs: %d submitted, %d arrived, %d waiting, %d in transit, %.1f/min arriving, %.1f/min completing, %.0f%% elevator utilization",
+			simulation.getSimulatedSeconds(), simulation.getPassengersSubmitted(), simulation.getPassengersArrived(), 
+			simulation.getPassengersWaiting(), simulation.getPassengersInTransit(), simulation.getArrivalRate(), 
+			simulation.getCompletionRate(), elevators.isEmpty() ? 0 : 100 * utilization / elevators.size());
+	}
+}
@@ -0,0 +1,120 @@
+package elevator.simulation.metrics;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import elevator.model.Environment;
+import elevator.model.Floor;
+
+/**
+ * Reads the metrics of a run from the counters kept by the environment and the floors.
+ * 
+ * Rates are computed from the counts at earlier readings, kept for the length of the rate window. 
+ * When readings are further apart than the window, the rates are over the time since the previous reading.
+ */
+class SimulationMetrics implements SimulationMetricsMXBean {
+
+	private static final long RATE_WINDOW_NANOS = Duration.ofMinutes(1).toNanos();
+	// Readings closer together than this share a sample, so frequent readers don't grow the samples
+	private static final long SAMPLE_INTERVAL_NANOS = RATE_WINDOW_NANOS / 60;
+	
+	private Environment env;
+	// Simulated time, passengers submitted and passengers arrived at earlier readings, oldest first
+	private ArrayDeque<long[]> samples = new ArrayDeque<>();
+	private ReentrantLock samplesLock = new ReentrantLock();
+	
+	SimulationMetrics(Environment env) {
+		this.env = env;
+	}
+	
+	@Override
+	public double getSimulatedSeconds() {
+		return env.getClock().now().toNanos() / 1e9;
+	}
+
+	@Override
+	public long getPassengersSubmitted() {
+		return env.getNumberOfSubmittedPassengers();
+	}
+
+	@Override
+	public long getPassengersArrived() {
+		return env.getNumberOfArrivedPassengers();
+	}
+
+	@Override
+	public long getPassengersInTransit() {
+		return env.getNumberOfPassengersInTransit();
+	}
+
+	@Override
+	public long getPassengersWaiting() {
+		long waiting = 0;
+		for (Floor floor : env.getFloors()) {
+			waiting += floor.getNumberOfWaitingPassengers();
+		}
+		return waiting;
+	}
+
+	@Override
+	public int[] getWaitingPassengersPerFloor() {
+		List<Floor> floors = env.getFloors();
+		int[] waiting = new int[floors.size()];
+		for (int i = 0; i < waiting.length; ++i) {
+			waiting[i] = floors.get(i).getNumberOfWaitingPassengers();
+		}
+		return waiting;
+	}
+
+	@Override
+	public double getArrivalRate() {
+		return perMinute(1);
+	}
+
+	@Override
+	public double getCompletionRate() {
+		return perMinute(2);
+	}
+	
+	/**
+	 * Returns the change per simulated minute of the count at the index in the samples
+	 */
+	private double perMinute(int count) {
+		long[] current = { env.getClock().nowNanos(), getPassengersSubmitted(), getPassengersArrived() };
+		long[] baseline = sample(current);
+		if (baseline == null) {
+			// Nothing read before, or only at this very time
+			return current[0] > 0 ? current[count] * 60e9 / current[0] : 0;
+		}
+		return (current[count] - baseline[count]) * 60e9 / (current[0] - baseline[0]);
+	}
+	
+	/**
+	 * Adds the current counts to the samples and returns the sample to compute rates from: the newest one at 
+	 * least the window old, or the oldest if all are newer. Returns null if there is no earlier sample.
+	 */
+	private long[] sample(long[] current) {
+		samplesLock.lock();
+		try {
+			long now = current[0];
+			long[] baseline = null;
+			while (!samples.isEmpty() && now - samples.peekFirst()[0] >= RATE_WINDOW_NANOS) {
+				baseline = samples.pollFirst();
+			}
+			if (baseline != null) {
+				samples.addFirst(baseline);
+			} else {
+				baseline = samples.peekFirst();
+			}
+			
+			if (samples.isEmpty() || now - samples.peekLast()[0] >= SAMPLE_INTERVAL_NANOS) {
+				samples.addLast(current);
+			}
+			return baseline == null || baseline[0] >= now ? null : baseline;
+		} finally {
+			samplesLock.unlock();
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package elevator.simulation.metrics;
+
+/**
+ * Live metrics of a whole simulation run
+ */
+public interface SimulationMetricsMXBean {
+	
+	double getSimulatedSeconds();
+	
+	long getPassengersSubmitted();
+	
+	long getPassengersArrived();
+	
+	long getPassengersInTransit();
+	
+	long getPassengersWaiting();
+	
+	/**
+	 * Number of passengers waiting at each floor, indexed by floor
+	 */
+	int[] getWaitingPassengersPerFloor();
+	
+	/**
+	 * Passengers submitted per simulated minute, over the last simulated minute
+	 */
+	double getArrivalRate();
+	
+	/**
+	 * Passengers arrived at their destination per simulated minute, over the last simulated minute
+	 */
+	double getCompletionRate();
+}
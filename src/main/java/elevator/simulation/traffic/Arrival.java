@@ -0,0 +1,42 @@
+package elevator.simulation.traffic;
+
+import java.io.Serializable;
+import java.time.Duration;
+
+/**
+ * A passenger showing up at a floor, wanting to go to another floor
+ */
+public class Arrival implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private Duration time;
+	private int departureFloor;
+	private int destinationFloor;
+	
+	public Arrival(Duration time, int departureFloor, int destinationFloor) {
+		this.time = time;
+		this.departureFloor = departureFloor;
+		this.destinationFloor = destinationFloor;
+	}
+	
+	/**
+	 * Simulated time since the start of the simulation
+	 */
+	public Duration getTime() {
+		return time;
+	}
+	
+	public int getDepartureFloor() {
+		return departureFloor;
+	}
+	
+	public int getDestinationFloor() {
+		return destinationFloor;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[%s: %d => %d]", time, departureFloor, destinationFloor);
+	}
+}
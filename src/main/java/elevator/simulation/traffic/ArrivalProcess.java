@@ -0,0 +1,35 @@
+package elevator.simulation.traffic;
+
+import java.io.Serializable;
+import java.util.Random;
+
+/**
+ * Produces passenger arrivals one at a time as the simulation advances, so that traffic of any 
+ * length can be simulated without holding all passengers in memory.
+ * 
+ * Implementations may keep state and are used by a single simulation run. They are serialized with 
+ * the rest of the state when a simulation is snapshotted.
+ */
+public interface ArrivalProcess extends Serializable {
+
+	/**
+	 * Returns the next arrival, not earlier than the previous one, or null if no more passengers arrive
+	 */
+	Arrival next(Random random, int numFloors);
+	
+	/**
+	 * Describes the arrivals the process produces, the same in every JVM, so that results of runs can be matched 
+	 * up across restarts. Defaults to toString().
+	 */
+	default String getKey() {
+		return toString();
+	}
+	
+	/**
+	 * Returns false if the key leaves out something that decides the arrivals, e.g. a function, so that 
+	 * results of runs with the process are never matched up by key
+	 */
+	default boolean isDescribable() {
+		return true;
+	}
+}
@@ -0,0 +1,86 @@
+package elevator.simulation.traffic;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Writes arrivals to a compact binary trace that can be replayed with {@link TraceArrivalProcess}.
+ * 
+ * The trace starts with a magic number and a version byte, followed by one record per arrival: the 
+ * nanoseconds since the previous arrival, the departure floor and the destination floor, each as an 
+ * unsigned LEB128 varint. A typical record takes five to seven bytes.
+ */
+public class ArrivalTraceWriter implements Closeable {
+
+	static final int MAGIC = 0x454c5452; // "ELTR"
+	static final byte VERSION = 1;
+	
+	/**
+	 * Largest possible record: a 64 bit and two 32 bit varints
+	 */
+	static final int MAX_RECORD_SIZE = 10 + 5 + 5;
+	
+	private OutputStream out;
+	private long previousNanos;
+	private long numArrivals;
+	
+	public ArrivalTraceWriter(Path path) throws IOException {
+		this(Files.newOutputStream(path));
+	}
+	
+	public ArrivalTraceWriter(OutputStream out) throws IOException {
+		this.out = new BufferedOutputStream(out, 1 << 16);
+		
+		this.out.write(MAGIC >>> 24);
+		this.out.write(MAGIC >>> 16);
+		this.out.write(MAGIC >>> 8);
+		this.out.write(MAGIC);
+		this.out.write(VERSION);
+	}
+	
+	public void write(Arrival arrival) throws IOException {
+		write(arrival.getTime(), arrival.getDepartureFloor(), arrival.getDestinationFloor());
+	}
+	
+	/**
+	 * Appends an arrival, which must not be earlier than the previous one
+	 */
+	public void write(Duration time, int departureFloor, int destinationFloor) throws IOException {
+		long nanos = time.toNanos();
+		if (nanos < previousNanos) {
+			throw new IllegalArgumentException("Arrival at " + time + " is earlier than the previous one");
+		}
+		if (departureFloor < 0 || destinationFloor < 0) {
+			throw new IllegalArgumentException("Invalid floors: " + departureFloor + " => " + destinationFloor);
+		}
+		
+		writeVarint(nanos - previousNanos);
+		writeVarint(departureFloor);
+		writeVarint(destinationFloor);
+		
+		previousNanos = nanos;
+		++numArrivals;
+	}
+	
+	public long getNumberOfArrivals() {
+		return numArrivals;
+	}
+	
+	private void writeVarint(long value) throws IOException {
+		while ((value & ~0x7fL) != 0) {
+			out.write((int) (value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+	
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
@@ -0,0 +1,52 @@
+package elevator.simulation.traffic;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * A fixed number of passengers arriving one at a time with a random delay in between, the first one 
+ * immediately.
+ * 
+ * Can only be snapshotted if the delay function is serializable.
+ */
+public class DelayArrivalProcess implements ArrivalProcess {
+
+	private static final long serialVersionUID = 1L;
+
+	private long numPassengers;
+	private Function<Random, Duration> delayBetweenPassengers;
+	private TrafficPattern pattern;
+	private long numArrived;
+	private Duration time = Duration.ZERO;
+	
+	public DelayArrivalProcess(long numPassengers, Function<Random, Duration> delayBetweenPassengers, TrafficPattern pattern) {
+		this.numPassengers = numPassengers;
+		this.delayBetweenPassengers = delayBetweenPassengers;
+		this.pattern = pattern;
+	}
+
+	@Override
+	public Arrival next(Random random, int numFloors) {
+		if (numArrived == numPassengers) {
+			return null;
+		}
+		if (numArrived++ > 0) {
+			time = time.plus(delayBetweenPassengers.apply(random));
+		}
+		return pattern.createArrival(time, random, numFloors);
+	}
+	
+	/**
+	 * The delay function can't be described
+	 */
+	@Override
+	public boolean isDescribable() {
+		return false;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("Delay(%d passengers, %s)", numPassengers, pattern);
+	}
+}
@@ -0,0 +1,55 @@
+package elevator.simulation.traffic;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * A fixed number of passengers arriving independently at a constant average rate, i.e. with exponentially 
+ * distributed time between arrivals.
+ */
+public class PoissonArrivalProcess implements ArrivalProcess {
+
+	private static final long serialVersionUID = 1L;
+
+	private long numPassengers;
+	private double passengersPerSecond;
+	private TrafficPattern pattern;
+	private long numArrived;
+	private double seconds;
+	
+	public PoissonArrivalProcess(long numPassengers, double passengersPerMinute, TrafficPattern pattern) {
+		if (passengersPerMinute <= 0) {
+			throw new IllegalArgumentException("Invalid arrival rate: " + passengersPerMinute);
+		}
+		this.numPassengers = numPassengers;
+		this.passengersPerSecond = passengersPerMinute / 60;
+		this.pattern = pattern;
+	}
+	
+	@Override
+	public Arrival next(Random random, int numFloors) {
+		if (numArrived == numPassengers) {
+			return null;
+		}
+		++numArrived;
+		seconds += exponential(random, passengersPerSecond);
+		return pattern.createArrival(toDuration(seconds), random, numFloors);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT, "Poisson(%d passengers, %s/min, %s)", numPassengers, passengersPerSecond * 60, pattern);
+	}
+	
+	/**
+	 * Time until the next arrival at the specified rate, in seconds
+	 */
+	static double exponential(Random random, double ratePerSecond) {
+		return -Math.log(1 - random.nextDouble()) / ratePerSecond;
+	}
+	
+	static Duration toDuration(double seconds) {
+		return Duration.ofNanos((long) (seconds * 1e9));
+	}
+}
@@ -0,0 +1,50 @@
+package elevator.simulation.traffic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Random;
+
+/**
+ * Passes on the arrivals of another process, writing each one to a trace. The trace is closed once 
+ * the other process runs out of arrivals or when this process is closed.
+ * 
+ * Can't be serialized, snapshot the other process instead.
+ */
+public class RecordingArrivalProcess implements ArrivalProcess, Closeable {
+
+	private static final long serialVersionUID = 1L;
+
+	private ArrivalProcess arrivals;
+	private ArrivalTraceWriter writer;
+	
+	public RecordingArrivalProcess(ArrivalProcess arrivals, ArrivalTraceWriter writer) {
+		this.arrivals = arrivals;
+		this.writer = writer;
+	}
+
+	@Override
+	public Arrival next(Random random, int numFloors) {
+		Arrival arrival = arrivals.next(random, numFloors);
+		try {
+			if (arrival == null) {
+				close();
+			} else {
+				writer.write(arrival);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return arrival;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		writer.close();
+	}
+	
+	@Override
+	public String toString() {
+		return "Recording " + arrivals.getClass().getSimpleName();
+	}
+}
@@ -0,0 +1,99 @@
+package elevator.simulation.traffic;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Passengers arriving independently at a rate and with a traffic pattern that changes over the day.
+ * 
+ * The day is a sequence of periods, each with a constant rate and pattern. No more passengers arrive 
+ * after the last period.
+ */
+public class TimeOfDayArrivalProcess implements ArrivalProcess {
+
+	private static final long serialVersionUID = 1L;
+
+	private static class Period implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+		
+		final double length;
+		final double passengersPerSecond;
+		final TrafficPattern pattern;
+		
+		Period(double length, double passengersPerSecond, TrafficPattern pattern) {
+			this.length = length;
+			this.passengersPerSecond = passengersPerSecond;
+			this.pattern = pattern;
+		}
+		
+		@Override
+		public String toString() {
+			return String.format(Locale.ROOT, "%ss %s/min %s", length, passengersPerSecond * 60, pattern);
+		}
+	}
+	
+	private List<Period> periods = new ArrayList<>();
+	private int currentPeriod;
+	private double periodStart;
+	private double seconds;
+	
+	/**
+	 * A typical office day, scaled by the number of people working in the building: morning up peak, 
+	 * lunch with people going out and coming back, and evening down peak. Each person makes about 
+	 * three and a half trips a day.
+	 */
+	public static TimeOfDayArrivalProcess officeDay(int population) {
+		// Passengers per minute for everybody to make one trip per hour
+		double everybodyPerHour = population / 60d;
+		return new TimeOfDayArrivalProcess()
+			.withPeriod(Duration.ofHours(1), everybodyPerHour * 0.8, TrafficPattern.UP_PEAK)
+			.withPeriod(Duration.ofHours(3), everybodyPerHour * 0.1, TrafficPattern.INTERFLOOR)
+			.withPeriod(Duration.ofMinutes(30), everybodyPerHour * 1.2, TrafficPattern.DOWN_PEAK)
+			.withPeriod(Duration.ofMinutes(30), everybodyPerHour * 1.2, TrafficPattern.UP_PEAK)
+			.withPeriod(Duration.ofHours(3), everybodyPerHour * 0.1, TrafficPattern.INTERFLOOR)
+			.withPeriod(Duration.ofHours(1), everybodyPerHour * 0.8, TrafficPattern.DOWN_PEAK);
+	}
+	
+	/**
+	 * Appends a period to the day
+	 */
+	public TimeOfDayArrivalProcess withPeriod(Duration length, double passengersPerMinute, TrafficPattern pattern) {
+		if (passengersPerMinute < 0) {
+			throw new IllegalArgumentException("Invalid arrival rate: " + passengersPerMinute);
+		}
+		periods.add(new Period(length.toNanos() / 1e9, passengersPerMinute / 60, pattern));
+		return this;
+	}
+
+	@Override
+	public Arrival next(Random random, int numFloors) {
+		while (currentPeriod < periods.size()) {
+			Period period = periods.get(currentPeriod);
+			double periodEnd = periodStart + period.length;
+			
+			if (period.passengersPerSecond > 0) {
+				double next = seconds + PoissonArrivalProcess.exponential(random, period.passengersPerSecond);
+				if (next < periodEnd) {
+					seconds = next;
+					return period.pattern.createArrival(PoissonArrivalProcess.toDuration(seconds), random, numFloors);
+				}
+			}
+			
+			// No more arrivals this period, arrivals are memoryless so just start over at the next one
+			seconds = periodEnd;
+			periodStart = periodEnd;
+			++currentPeriod;
+		}
+		return null;
+	}
+	
+	@Override
+	public String toString() {
+		return "TimeOfDay" + periods;
+	}
+}
@@ -0,0 +1,193 @@
+package elevator.simulation.traffic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Replays the arrivals of a trace written by {@link ArrivalTraceWriter}, e.g. recorded from another run 
+ * or converted from the turnstile logs of a real building. The random generator is not used, so different 
+ * strategies see identical traffic.
+ * 
+ * The trace is memory mapped a window at a time rather than read onto the heap, so traces of any size can 
+ * be replayed. The file is opened on the first call to {@link #next(Random, int)}. When serialized, e.g. in a 
+ * snapshot, the position in the file is saved and the trace is reopened there.
+ */
+public class TraceArrivalProcess implements ArrivalProcess, Closeable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final long WINDOW_SIZE = 64 << 20;
+	
+	// Content hashes by absolute path, size and modification time, so each version of a trace is read once
+	private static final Map<String, String> CONTENT_HASHES = new ConcurrentHashMap<>();
+	
+	private transient Path path;
+	private transient FileChannel channel;
+	private transient long fileSize;
+	private transient MappedByteBuffer window;
+	private transient long windowStart;
+	private long nanos;
+	private boolean finished;
+	
+	// Where to continue reading when deserialized
+	private long position;
+	
+	public TraceArrivalProcess(Path path) {
+		this.path = path;
+	}
+
+	@Override
+	public Arrival next(Random random, int numFloors) {
+		if (finished) {
+			return null;
+		}
+		
+		try {
+			if (channel == null) {
+				open();
+			}
+			
+			if (window.remaining() < ArrivalTraceWriter.MAX_RECORD_SIZE && windowStart + window.limit() < fileSize) {
+				map(windowStart + window.position());
+			}
+			
+			if (!window.hasRemaining()) {
+				close();
+				return null;
+			}
+			
+			nanos += readVarint();
+			int departureFloor = (int) readVarint();
+			int destinationFloor = (int) readVarint();
+			
+			if (departureFloor >= numFloors || destinationFloor >= numFloors) {
+				throw new IllegalArgumentException(String.format("Trace %s goes to floor %d but there are only %d floors", 
+					path, Math.max(departureFloor, destinationFloor), numFloors));
+			}
+			
+			return new Arrival(Duration.ofNanos(nanos), departureFloor, destinationFloor);
+		} catch (BufferUnderflowException e) {
+			throw new IllegalStateException("Truncated trace " + path, e);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	private void open() throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		fileSize = channel.size();
+		map(0);
+		
+		if (window.remaining() < 5 || window.getInt() != ArrivalTraceWriter.MAGIC) {
+			throw new IllegalStateException("Not an arrival trace: " + path);
+		}
+		byte version = window.get();
+		if (version != ArrivalTraceWriter.VERSION) {
+			throw new IllegalStateException("Unsupported trace version " + version + ": " + path);
+		}
+		
+		if (position > 0) {
+			map(position);
+		}
+	}
+	
+	private void map(long position) throws IOException {
+		windowStart = position;
+		window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, fileSize - position));
+	}
+	
+	private long readVarint() {
+		long value = 0;
+		for (int shift = 0; ; shift += 7) {
+			byte b = window.get();
+			value |= (long) (b & 0x7f) << shift;
+			if (b >= 0) {
+				return value;
+			}
+			if (shift > 56) {
+				throw new IllegalStateException("Malformed varint in trace " + path);
+			}
+		}
+	}
+	
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		if (window != null) {
+			position = windowStart + window.position();
+		}
+		out.defaultWriteObject();
+		out.writeUTF(path.toString());
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		path = Paths.get(in.readUTF());
+	}
+	
+	@Override
+	public void close() throws IOException {
+		finished = true;
+		window = null;
+		if (channel != null) {
+			channel.close();
+		}
+	}
+	
+	/**
+	 * Describes the trace by its absolute path and a hash of its content, so that traces with the same name 
+	 * in different directories, or a trace that was rewritten, don't share a key
+	 */
+	@Override
+	public String getKey() {
+		try {
+			Path absolute = path.toAbsolutePath().normalize();
+			String version = absolute + ";" + Files.size(absolute) + ";" + Files.getLastModifiedTime(absolute).toMillis();
+			String hash = CONTENT_HASHES.get(version);
+			if (hash == null) {
+				hash = hashContent(absolute);
+				CONTENT_HASHES.put(version, hash);
+			}
+			return "Trace(" + absolute + ", sha256=" + hash + ")";
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	private static String hashContent(Path file) throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[1 << 16];
+			for (int n; (n = in.read(buffer)) > 0; ) {
+				digest.update(buffer, 0, n);
+			}
+			StringBuilder sb = new StringBuilder();
+			for (byte b : digest.digest()) {
+				sb.append(String.format("%02x", b));
+			}
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "Trace " + path.getFileName();
+	}
+}
@@ -0,0 +1,57 @@
+package elevator.simulation.traffic;
+
+import java.time.Duration;
+import java.util.Random;
+
+/**
+ * Where passengers come from and where they go. Floor 0 is the lobby.
+ */
+public enum TrafficPattern {
+	
+	/**
+	 * Everybody enters at the lobby, e.g. in the morning
+	 */
+	UP_PEAK {
+		@Override
+		int departureFloor(Random random, int numFloors) {
+			return 0;
+		}
+	},
+	
+	/**
+	 * Everybody leaves through the lobby, e.g. in the evening
+	 */
+	DOWN_PEAK {
+		@Override
+		int departureFloor(Random random, int numFloors) {
+			return 1 + random.nextInt(numFloors - 1);
+		}
+		
+		@Override
+		int destinationFloor(Random random, int numFloors, int departureFloor) {
+			return 0;
+		}
+	},
+	
+	/**
+	 * Uniformly random trips between any two floors
+	 */
+	INTERFLOOR {
+		@Override
+		int departureFloor(Random random, int numFloors) {
+			return random.nextInt(numFloors);
+		}
+	};
+	
+	abstract int departureFloor(Random random, int numFloors);
+	
+	int destinationFloor(Random random, int numFloors, int departureFloor) {
+		int destinationFloor = random.nextInt(numFloors - 1);
+		return destinationFloor >= departureFloor ? destinationFloor + 1 : destinationFloor;
+	}
+	
+	public Arrival createArrival(Duration time, Random random, int numFloors) {
+		int departureFloor = departureFloor(random, numFloors);
+		return new Arrival(time, departureFloor, destinationFloor(random, numFloors, departureFloor));
+	}
+}
@@ -0,0 +1,66 @@
+package elevator.strategies.elevator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import elevator.model.Constants;
+import elevator.model.Elevator;
+import elevator.model.Elevator.State;
+import elevator.model.Environment;
+import elevator.model.Floor;
+
+/**
+ * Picks the elevator with the lowest estimated time of arrival at the departure floor.
+ * 
+ * The estimate is the travel time to the floor, turning around at the end of the building if heading 
+ * away from it, plus opening and closing doors at every queued stop and letting off every passenger aboard. 
+ * It is constant time per elevator.
+ */
+public class EtaElevatorSelectionStrategy implements elevator.model.strategytypes.ElevatorSelectionStrategy {
+
+	private Logger logger = LoggerFactory.getLogger(getClass());
+	
+	@Override
+	public Elevator getElevatorFor(int passenger, Floor departureFloor, Environment env) {
+		Constants constants = env.getConstants();
+		long travelTime = constants.getTravelTimeBetweenFloors().toMillis();
+		long stopTime = 2 * constants.getDoorOpenCloseTime().toMillis();
+		long disembarkTime = constants.getPassengerDisembarkTime().toMillis();
+		int floor = departureFloor.getFloor();
+		int topFloor = env.getFloors().size() - 1;
+		
+		Elevator best = null;
+		long bestEta = Long.MAX_VALUE;
+		
+		for (Elevator elevator : env.getElevators()) {
+			//
+			// As with the other strategies, the elevator's state may change while we are examining it
+			//
+			int currentFloor = elevator.getCurrentFloor();
+			State state = elevator.getStateOrProjectedState();
+			
+			int floorsToTravel;
+			if (state == State.STOPPED 
+					|| (state == State.GOING_UP && floor >= currentFloor) 
+					|| (state == State.GOING_DOWN && floor <= currentFloor)) {
+				floorsToTravel = Math.abs(floor - currentFloor);
+			} else {
+				// Heading away, assume it goes all the way to the end of the building before turning around
+				int turnAround = state == State.GOING_UP ? topFloor : 0;
+				floorsToTravel = Math.abs(turnAround - currentFloor) + Math.abs(turnAround - floor);
+			}
+			
+			long eta = floorsToTravel * travelTime 
+				+ elevator.getNumberOfQueuedFloors() * stopTime 
+				+ elevator.getNumberOfPassengers() * disembarkTime;
+			
+			if (eta < bestEta) {
+				bestEta = eta;
+				best = elevator;
+			}
+		}
+		
+		env.debug(logger, "Elevator {} has the lowest ETA to floor {}: {} ms", best, floor, bestEta);
+		return best;
+	}
+}
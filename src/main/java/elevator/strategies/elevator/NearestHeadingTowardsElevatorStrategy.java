@@ -7,7 +7,6 @@ import elevator.model.Elevator;
 import elevator.model.Elevator.State;
 import elevator.model.Environment;
 import elevator.model.Floor;
-import elevator.model.Passenger;
 
 /**
  * Finds the nearest elevator heading towards the floor 
@@ -18,14 +17,11 @@ public class NearestHeadingTowardsElevatorStrategy implements elevator.model.str
 	private RandomElevatorSelectionStrategy random = new RandomElevatorSelectionStrategy();
 	
 	@Override
-	public Elevator getElevatorFor(Passenger passenger, Floor departureFloor, Environment env) {
+	public Elevator getElevatorFor(int passenger, Floor departureFloor, Environment env) {
 		
 		Elevator closest = null;
 		int closestFloorsAway = Integer.MAX_VALUE;
 		
-		StringBuilder debugOutput = new StringBuilder();
-		debugOutput.append("Nearest heading towards floor ").append(departureFloor.getFloor()).append("\n");
-		
 		for (Elevator elevator : env.getElevators()) {
 			//
 			// Note that a particular elevator's state can change while we are examining it. We just have to deal with it and accept possible bad behavior
@@ -34,13 +30,13 @@ public class NearestHeadingTowardsElevatorStrategy implements elevator.model.str
 			
 			if (state == State.GOING_UP) {
 				if (elevator.getCurrentFloor() > departureFloor.getFloor()) {
-					debugOutput.append(elevator).append(": Not applicable, going up and is above our floor\n");
+					env.debug(logger, "{}: Not applicable, going up and is above floor {}", elevator, departureFloor.getFloor());
 					// Not applicable
 					continue;
 				}
 			} else if (state == State.GOING_DOWN) {
 				if (elevator.getCurrentFloor() < departureFloor.getFloor()) {
-					debugOutput.append(elevator).append(": Not applicable, going down and is below our floor\n");
+					env.debug(logger, "{}: Not applicable, going down and is below floor {}", elevator, departureFloor.getFloor());
 					// Not applicable
 					continue;
 				}
@@ -49,16 +45,13 @@ public class NearestHeadingTowardsElevatorStrategy implements elevator.model.str
 			}
 			
 			int floorsAway = Math.abs(departureFloor.getFloor() - elevator.getCurrentFloor());
-			debugOutput.append(elevator).append(": ").append(floorsAway).append(" floors away\n");
+			env.debug(logger, "{}: {} floors away from floor {}", elevator, floorsAway, departureFloor.getFloor());
 			
 			if (closestFloorsAway > floorsAway) {
 				closestFloorsAway = floorsAway;
 				closest = elevator;
 			}
 		}
-		debugOutput.append("Closest: ").append(closest);
-		
-		env.debug(logger, debugOutput.toString());
 		
 		if (closest != null) {
 			env.debug(logger, "Closest heading towards floor {}: {}", departureFloor.getFloor(), closest);
@@ -6,7 +6,6 @@ import org.slf4j.LoggerFactory;
 import elevator.model.Elevator;
 import elevator.model.Environment;
 import elevator.model.Floor;
-import elevator.model.Passenger;
 
 /**
  * A random elevator is assigned 
@@ -16,8 +15,8 @@ public class RandomElevatorSelectionStrategy implements elevator.model.strategyt
 	private Logger logger = LoggerFactory.getLogger(getClass());
 	
 	@Override
-	public Elevator getElevatorFor(Passenger passenger, Floor departureFloor, Environment env) {
-		Elevator elevator = env.getElevators().get(env.getRandom().nextInt(env.getElevators().size()));
+	public Elevator getElevatorFor(int passenger, Floor departureFloor, Environment env) {
+		Elevator elevator = env.getElevators().get(env.getRandomStreams().getDispatch().nextInt(env.getElevators().size()));
 		
 		env.debug(logger, "Randomly picked elevator {} for new passenger", elevator);
 		return elevator;
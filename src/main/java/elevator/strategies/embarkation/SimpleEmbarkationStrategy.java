@@ -2,7 +2,6 @@ package elevator.strategies.embarkation;
 
 import elevator.model.Elevator;
 import elevator.model.Floor;
-import elevator.model.Passenger;
 
 /**
  * This strategy embarks passengers on elevators that are going to their destination floor 
@@ -10,9 +9,9 @@ import elevator.model.Passenger;
 public class SimpleEmbarkationStrategy implements elevator.model.strategytypes.EmbarkationStrategy {
 
 	@Override
-	public boolean shouldPassengerEmbark(Passenger passenger, Floor fromFloor, Elevator onElevator) {
+	public boolean shouldPassengersEmbark(int destinationFloor, Floor fromFloor, Elevator onElevator) {
 		
-		if (onElevator.isGoingToFloor(passenger.getDestinationFloor())) {
+		if (onElevator.isGoingToFloor(destinationFloor)) {
 			return true;
 		}
 		
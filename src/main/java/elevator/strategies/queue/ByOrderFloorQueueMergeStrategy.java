@@ -1,8 +1,8 @@
 package elevator.strategies.queue;
 
-import java.util.List;
-
 import elevator.model.Elevator.State;
+import elevator.model.FloorQueue;
+import elevator.model.OrderedFloorQueue;
 import elevator.model.strategytypes.FloorQueueMergeStrategy;
 
 /**
@@ -11,13 +11,20 @@ import elevator.model.strategytypes.FloorQueueMergeStrategy;
 public class ByOrderFloorQueueMergeStrategy implements FloorQueueMergeStrategy {
 
 	@Override
-	public List<Integer> merge(
+	public FloorQueue createQueue(int numFloors) {
+		return new OrderedFloorQueue(numFloors);
+	}
+	
+	@Override
+	public FloorQueue merge(
 			State state, 
 			int currentFloor, 
-			List<Integer> currentQueue, 
+			FloorQueue queue, 
 			int fromFloor,
 			int destFloor) {
 		
+		OrderedFloorQueue currentQueue = (OrderedFloorQueue) queue;
+		
 		int fromIdx = currentQueue.indexOf(fromFloor);
 		int destIdx = currentQueue.indexOf(destFloor);
 
@@ -41,5 +48,16 @@ public class ByOrderFloorQueueMergeStrategy implements FloorQueueMergeStrategy {
 		
 		return currentQueue;
 	}
-
+	
+	/**
+	 * Queues the stops in the order the other queue would visit them
+	 */
+	@Override
+	public FloorQueue takeOver(State state, int position, FloorQueue otherQueue, int numFloors) {
+		OrderedFloorQueue queue = new OrderedFloorQueue(numFloors);
+		while (!otherQueue.isEmpty()) {
+			queue.add(otherQueue.poll());
+		}
+		return queue;
+	}
 }
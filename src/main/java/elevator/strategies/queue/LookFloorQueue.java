@@ -0,0 +1,207 @@
+package elevator.strategies.queue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import elevator.model.FloorQueue;
+import elevator.model.OrderedFloorQueue;
+
+/**
+ * Floor queue for collective up/down (LOOK) operation. 
+ * 
+ * Stops are kept in a sorted set. The floors above the elevator's position are served in 
+ * ascending order while going up and the floors below in descending order while going down. 
+ * The elevator reverses direction when there are no more stops ahead. Adding and taking stops 
+ * is logarithmic in the number of queued stops.
+ * 
+ * A destination that would be passed before its passenger has been picked up is held back until 
+ * the departure floor has been polled, see {@link #addStopAfter(int, int)}.
+ * 
+ * A queue taken over from another strategy first visits the handed over floors in the other queue's 
+ * order, since only that order is known to get every waiting passenger to their destination, see 
+ * {@link #handOver(FloorQueue)}.
+ */
+public class LookFloorQueue implements FloorQueue, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private TreeSet<Integer> stops = new TreeSet<>();
+	
+	// Destination floors waiting for the departure floor, indexed by departure floor
+	private List<List<Integer>> heldBack;
+	private int numHeldBack;
+	
+	// Floors handed over from another strategy's queue, visited before the stops. Null once all are visited.
+	private OrderedFloorQueue handedOver;
+	
+	// The floor the elevator last polled, i.e. is at or going to
+	private int position;
+	private boolean goingUp = true;
+	
+	public LookFloorQueue(int numFloors) {
+		heldBack = new ArrayList<>(numFloors);
+		for (int i = 0; i < numFloors; ++i) {
+			heldBack.add(null);
+		}
+	}
+	
+	public LookFloorQueue(LookFloorQueue copy) {
+		stops = new TreeSet<>(copy.stops);
+		heldBack = new ArrayList<>(copy.heldBack.size());
+		for (List<Integer> floors : copy.heldBack) {
+			heldBack.add(floors == null ? null : new ArrayList<>(floors));
+		}
+		numHeldBack = copy.numHeldBack;
+		handedOver = copy.handedOver == null ? null : copy.handedOver.copy();
+		position = copy.position;
+		goingUp = copy.goingUp;
+	}
+	
+	/**
+	 * Moves the position of an idle elevator
+	 */
+	void setPosition(int floor) {
+		position = floor;
+	}
+	
+	/**
+	 * Visits the floors of the other queue, in the order it would, before any stops of this queue
+	 */
+	void handOver(FloorQueue other) {
+		OrderedFloorQueue floors = new OrderedFloorQueue(heldBack.size());
+		while (!other.isEmpty()) {
+			floors.add(other.poll());
+		}
+		handedOver = floors.isEmpty() ? null : floors;
+	}
+	
+	public boolean isGoingUp() {
+		return goingUp;
+	}
+	
+	/**
+	 * Adds a stop to be served in the current or a later sweep
+	 */
+	public void addStop(int floor) {
+		if (handedOver != null && handedOver.contains(floor)) {
+			return;
+		}
+		stops.add(floor);
+	}
+	
+	/**
+	 * Adds a stop that must be served after the first floor. If the current sweep passes the second
+	 * floor before the first, or the first floor is itself held back, the second floor is added when 
+	 * the first is polled. Stops are always served after the handed over floors.
+	 */
+	public void addStopAfter(int first, int floor) {
+		if (handedOver != null && handedOver.contains(first)) {
+			stops.add(floor);
+		} else if (handedOver == null && stops.contains(first) && isServedBefore(first, floor)) {
+			stops.add(floor);
+		} else {
+			List<Integer> floors = heldBack.get(first);
+			if (floors == null) {
+				floors = new ArrayList<>(2);
+				heldBack.set(first, floors);
+			}
+			floors.add(floor);
+			++numHeldBack;
+		}
+	}
+	
+	/**
+	 * Returns true if a stop at the first floor is reached before a stop at the second floor, 
+	 * given that the first floor is queued
+	 */
+	private boolean isServedBefore(int first, int second) {
+		boolean firstInCurrentSweep = goingUp ? first >= position : first <= position;
+		if (firstInCurrentSweep) {
+			// Served later in the same sweep
+			return goingUp ? second > first : second < first;
+		}
+		// Both served in the reverse sweep
+		return goingUp ? second < first : second > first;
+	}
+	
+	@Override
+	public int size() {
+		return stops.size() + numHeldBack + (handedOver == null ? 0 : handedOver.size());
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return stops.isEmpty() && handedOver == null;
+	}
+
+	@Override
+	public boolean contains(int floor) {
+		return stops.contains(floor) || handedOver != null && handedOver.contains(floor);
+	}
+	
+	@Override
+	public void markFloors(long[] bits, int numFloors) {
+		for (int floor : stops) {
+			bits[floor >> 6] |= 1L << floor;
+		}
+		if (handedOver != null) {
+			handedOver.markFloors(bits, numFloors);
+		}
+	}
+
+	@Override
+	public int peek() {
+		if (handedOver != null) {
+			return handedOver.peek();
+		}
+		Integer next = goingUp ? stops.ceiling(position) : stops.floor(position);
+		if (next == null) {
+			next = goingUp ? stops.floor(position) : stops.ceiling(position);
+		}
+		if (next == null) {
+			throw new IllegalStateException("Floor queue is empty");
+		}
+		return next;
+	}
+
+	@Override
+	public int poll() {
+		int next;
+		if (handedOver != null) {
+			// Stops at the same floor stay queued, they may be destinations of passengers boarding later
+			next = handedOver.poll();
+			if (handedOver.isEmpty()) {
+				handedOver = null;
+			}
+		} else {
+			next = peek();
+			stops.remove(next);
+		}
+		
+		if (next != position) {
+			goingUp = next > position;
+		}
+		position = next;
+		
+		List<Integer> released = heldBack.get(next);
+		if (released != null) {
+			heldBack.set(next, null);
+			numHeldBack -= released.size();
+			stops.addAll(released);
+		}
+		return next;
+	}
+
+	@Override
+	public LookFloorQueue copy() {
+		return new LookFloorQueue(this);
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("[Position %d going %s. Stops: %s%s]", position, goingUp ? "up" : "down", stops, 
+			handedOver == null ? "" : ", after handed over " + handedOver);
+	}
+}
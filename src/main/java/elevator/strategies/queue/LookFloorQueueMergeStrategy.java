@@ -0,0 +1,44 @@
+package elevator.strategies.queue;
+
+import elevator.model.Elevator.State;
+import elevator.model.FloorQueue;
+import elevator.model.strategytypes.FloorQueueMergeStrategy;
+
+/**
+ * Collective up/down operation: keeps going in the same direction as long as there are stops ahead, 
+ * serving them in floor order, and then reverses. Avoids the zig-zagging of serving floors in the
+ * order they were requested.
+ */
+public class LookFloorQueueMergeStrategy implements FloorQueueMergeStrategy {
+
+	@Override
+	public FloorQueue createQueue(int numFloors) {
+		return new LookFloorQueue(numFloors);
+	}
+
+	@Override
+	public FloorQueue merge(State state, int currentFloor, FloorQueue queue, int fromFloor, int toFloor) {
+		LookFloorQueue currentQueue = (LookFloorQueue) queue;
+		
+		if (currentQueue.isEmpty() && state == State.STOPPED) {
+			currentQueue.setPosition(currentFloor);
+		}
+		
+		currentQueue.addStop(fromFloor);
+		currentQueue.addStopAfter(fromFloor, toFloor);
+		
+		return currentQueue;
+	}
+	
+	/**
+	 * Visits the stops of the other queue in its order first, so that no passenger's destination is served 
+	 * before the departure floor, and only then collects the stops added since in LOOK order
+	 */
+	@Override
+	public FloorQueue takeOver(State state, int position, FloorQueue otherQueue, int numFloors) {
+		LookFloorQueue queue = new LookFloorQueue(numFloors);
+		queue.setPosition(position);
+		queue.handOver(otherQueue);
+		return queue;
+	}
+}
@@ -0,0 +1,88 @@
+package elevator.test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import elevator.model.Elevator.State;
+import elevator.model.FloorQueue;
+import elevator.model.OrderedFloorQueue;
+import elevator.model.strategytypes.FloorQueueMergeStrategy;
+import elevator.simulation.ElevatorSimulationResult;
+import elevator.simulation.ElevatorSimulator;
+import elevator.simulation.SimulationParameters;
+import elevator.simulation.SimulationSnapshot;
+import elevator.simulation.traffic.PoissonArrivalProcess;
+import elevator.simulation.traffic.TrafficPattern;
+import elevator.strategies.elevator.RandomElevatorSelectionStrategy;
+import elevator.strategies.embarkation.SimpleEmbarkationStrategy;
+import elevator.strategies.queue.ByOrderFloorQueueMergeStrategy;
+import elevator.strategies.queue.LookFloorQueueMergeStrategy;
+
+/**
+ * Forks snapshots of runs with one floor queue merge strategy into the other and checks that every
+ * passenger still arrives
+ */
+public class SnapshotForkTest {
+
+	private static final int NUM_PASSENGERS = 500;
+	
+	public static void main(String[] args) throws InterruptedException, TimeoutException {
+		testLookTakesOverByOrderChain();
+		
+		for (long seed = 1; seed <= 20; ++seed) {
+			for (int minutes : new int[] { 1, 3, 10 }) {
+				testFork(seed, Duration.ofMinutes(minutes), ByOrderFloorQueueMergeStrategy::new, LookFloorQueueMergeStrategy::new);
+				testFork(seed, Duration.ofMinutes(minutes), LookFloorQueueMergeStrategy::new, ByOrderFloorQueueMergeStrategy::new);
+			}
+		}
+		System.out.println("All forks completed");
+	}
+	
+	/**
+	 * A ByOrder queue visiting 5, 2 and 8 from floor 0 must be visited in that order by LOOK, since a
+	 * passenger boarding at 2 may be going to 8
+	 */
+	private static void testLookTakesOverByOrderChain() {
+		OrderedFloorQueue byOrder = new OrderedFloorQueue(10);
+		byOrder.add(5);
+		byOrder.add(2);
+		byOrder.add(8);
+		FloorQueue look = new LookFloorQueueMergeStrategy().takeOver(State.STOPPED, 0, byOrder, 10);
+		
+		StringBuilder order = new StringBuilder();
+		while (!look.isEmpty()) {
+			order.append(look.poll()).append(' ');
+		}
+		check("5 2 8 ".equals(order.toString()), "LOOK took over [5, 2, 8] as " + order);
+	}
+	
+	private static void testFork(long seed, Duration snapshotTime, Supplier<? extends FloorQueueMergeStrategy> from, 
+			Supplier<? extends FloorQueueMergeStrategy> to) throws InterruptedException, TimeoutException {
+		SimulationParameters params = new SimulationParameters()
+			.withSeed(seed)
+			.withNumberOfFloors(20)
+			.withNumberOfElevators(4)
+			.withArrivalProcess(() -> new PoissonArrivalProcess(NUM_PASSENGERS, 60, TrafficPattern.INTERFLOOR))
+			.withElevatorSelectionStrategy(RandomElevatorSelectionStrategy::new)
+			.withEmbarkationStrategy(SimpleEmbarkationStrategy::new)
+			.withTimeout(Duration.ofSeconds(30));
+		SimulationParameters fromParams = new SimulationParameters(params).withFloorQueueMergeStrategy(from);
+		
+		ElevatorSimulator simulator = new ElevatorSimulator(fromParams);
+		simulator.runUntil(snapshotTime);
+		SimulationSnapshot snapshot = simulator.snapshot();
+		
+		SimulationParameters forkParams = new SimulationParameters(params).withFloorQueueMergeStrategy(to).withSnapshot(snapshot);
+		ElevatorSimulationResult result = new ElevatorSimulator(forkParams).run();
+		long arrived = result.getRideTimes().getCount();
+		check(arrived == NUM_PASSENGERS, String.format("Seed %d, %s forked into %s at %s: %d of %d passengers arrived",
+			seed, from.get().getClass().getSimpleName(), to.get().getClass().getSimpleName(), snapshotTime, arrived, NUM_PASSENGERS));
+	}
+	
+	private static void check(boolean condition, String message) {
+		if (!condition) {
+			throw new AssertionError(message);
+		}
+	}
+}
@@ -5,6 +5,7 @@ import java.time.Duration;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 import elevator.model.strategytypes.ElevatorSelectionStrategy;
 import elevator.model.strategytypes.EmbarkationStrategy;
@@ -15,6 +16,7 @@ import elevator.simulation.SimulationParametersPermutator;
 import elevator.strategies.elevator.RandomElevatorSelectionStrategy;
 import elevator.strategies.embarkation.SimpleEmbarkationStrategy;
 import elevator.strategies.queue.ByOrderFloorQueueMergeStrategy;
+import elevator.strategies.queue.LookFloorQueueMergeStrategy;
 
 public class Test {
 
@@ -23,15 +25,20 @@ public class Test {
 	public static void main(String[] args) throws InterruptedException, TimeoutException {
 
 		testWithStrategies(
-			new ByOrderFloorQueueMergeStrategy(),
-			new RandomElevatorSelectionStrategy(),
-			new SimpleEmbarkationStrategy());
+			ByOrderFloorQueueMergeStrategy::new,
+			RandomElevatorSelectionStrategy::new,
+			SimpleEmbarkationStrategy::new);
+		
+		testWithStrategies(
+			LookFloorQueueMergeStrategy::new,
+			RandomElevatorSelectionStrategy::new,
+			SimpleEmbarkationStrategy::new);
 	}
 	
 	public static void testWithStrategies(
-			FloorQueueMergeStrategy queueStrategy,
-			ElevatorSelectionStrategy elevatorStrategy, 
-			EmbarkationStrategy embarkationStrategy) throws InterruptedException, TimeoutException {
+			Supplier<? extends FloorQueueMergeStrategy> queueStrategy,
+			Supplier<? extends ElevatorSelectionStrategy> elevatorStrategy, 
+			Supplier<? extends EmbarkationStrategy> embarkationStrategy) throws InterruptedException, TimeoutException {
 		
 		SimulationParameters params = new SimulationParameters()
 				.withNumberOfPassengers(50)
@@ -51,7 +58,7 @@ public class Test {
 			.randomSeeds(1977, 1978, 12, 24, 12312314, 582349123, 231355229)
 			.permute();
 		
-		BatchRunner.run(paramList);
+		BatchRunner.runParallel(paramList);
 	}
 	
 	private static int uniformDistribution(Random random, int start, int end) {
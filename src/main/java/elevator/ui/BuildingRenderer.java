@@ -0,0 +1,232 @@
+package elevator.ui;
+
+import java.util.List;
+
+import elevator.model.BuildingView;
+import elevator.model.ElevatorView;
+import elevator.model.FloorView;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+ * Draws the building on two stacked canvases. The floors, shafts and labels don't change during a run and are
+ * drawn once on the background. The elevators and waiting passengers are drawn on the foreground, repainting
+ * only the shafts and floors whose views changed since the last frame.
+ *
+ * Only used on the FX thread.
+ */
+class BuildingRenderer {
+
+	private static final double TOP_PADDING = 50;
+	private static final double LEFT_PADDING = 10;
+	private static final double RIGHT_PADDING = 200;
+	private static final double PASSENGER_PADDING = 200;
+	private static final double ELEVATOR_LEFT_PADDING = 150;
+	private static final double ELEVATOR_RIGHT_PADDING = RIGHT_PADDING + PASSENGER_PADDING;
+	private static final double BOTTOM_PADDING = 10;
+
+	private static final double HEAD_WIDTH = 20;
+	private static final double EYE_WIDTH = 4;
+	private static final double EYE_X_OFFSET = 2;
+
+	private Canvas background;
+	private Canvas foreground;
+	private TextMetrics textMetrics;
+
+	// Layout the background is drawn for, no floors if nothing is drawn
+	private int numFloors;
+	private int numElevators;
+	private double floorHeight;
+	private double shaftWidth;
+
+	// What is drawn on the foreground
+	private BuildingView drawnView;
+	private ElevatorView[] drawnElevators;
+	private FloorView[] drawnFloors;
+
+	BuildingRenderer(Canvas background, Canvas foreground) {
+		this.background = background;
+		this.foreground = foreground;
+		this.textMetrics = new TextMetrics(foreground.getGraphicsContext2D().getFont());
+	}
+
+	/**
+	 * Repaints what changed since the last frame. Views share unchanged parts, so they are compared by reference.
+	 */
+	void render(BuildingView view) {
+		if (view == drawnView) {
+			return;
+		}
+		List<ElevatorView> elevators = view.getElevators();
+		List<FloorView> floors = view.getFloors();
+		if (floors.size() != numFloors || elevators.size() != numElevators) {
+			layout(elevators, floors);
+		}
+
+		for (int i = 0; i < numElevators; ++i) {
+			ElevatorView elevator = elevators.get(i);
+			if (elevator != drawnElevators[i]) {
+				drawElevator(i, elevator);
+				drawnElevators[i] = elevator;
+			}
+		}
+
+		for (int i = 0; i < numFloors; ++i) {
+			FloorView floor = floors.get(i);
+			if (floor != drawnFloors[i]) {
+				drawWaitingPassengers(i, floor);
+				drawnFloors[i] = floor;
+			}
+		}
+		drawnView = view;
+	}
+
+	/**
+	 * Clears both canvases, if anything is drawn
+	 */
+	void clear() {
+		if (numFloors == 0 && numElevators == 0) {
+			return;
+		}
+		clear(background);
+		clear(foreground);
+		numFloors = 0;
+		numElevators = 0;
+		drawnView = null;
+	}
+
+	private static void clear(Canvas canvas) {
+		canvas.getGraphicsContext2D().clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+	}
+
+	/**
+	 * Draws the ceilings, floors, shafts and their names on the background, and forgets what is drawn on the
+	 * foreground
+	 */
+	private void layout(List<ElevatorView> elevators, List<FloorView> floors) {
+		clear();
+		numFloors = floors.size();
+		numElevators = elevators.size();
+
+		floorHeight = (background.getHeight() - TOP_PADDING - BOTTOM_PADDING) / numFloors;
+		shaftWidth = (background.getWidth() - ELEVATOR_LEFT_PADDING - ELEVATOR_RIGHT_PADDING) / numElevators;
+		if (shaftWidth > floorHeight / 1.5) {
+			shaftWidth = floorHeight / 1.5;
+		}
+
+		GraphicsContext gc = background.getGraphicsContext2D();
+		textMetrics.setFont(gc.getFont());
+		gc.setStroke(Color.BLACK);
+		gc.setFill(Color.BLACK);
+
+		for (int i = numFloors; i >= 0; --i) {
+			double y = getFloorY(i);
+			gc.strokeLine(LEFT_PADDING, y, background.getWidth() - RIGHT_PADDING, y);
+
+			if (i < numFloors) {
+				gc.fillText(floors.get(i).getName(), 20, y - floorHeight / 2 + textMetrics.getHeight() / 2);
+			}
+		}
+
+		for (int i = 0; i <= numElevators; ++i) {
+			double x = getShaftX(i);
+			gc.strokeLine(x, TOP_PADDING, x, background.getHeight() - BOTTOM_PADDING);
+
+			if (i < numElevators) {
+				String name = elevators.get(i).getName();
+				gc.fillText(name, x + shaftWidth / 2 - textMetrics.getWidth(name) / 2, 20);
+			}
+		}
+
+		drawnElevators = new ElevatorView[numElevators];
+		drawnFloors = new FloorView[numFloors];
+	}
+
+	/**
+	 * Repaints the shaft of the elevator
+	 */
+	private void drawElevator(int shaft, ElevatorView elevator) {
+		GraphicsContext gc = foreground.getGraphicsContext2D();
+		double x = getShaftX(shaft);
+		double top = TOP_PADDING;
+		double bottom = foreground.getHeight() - BOTTOM_PADDING;
+
+		gc.save();
+		clip(gc, x, top, shaftWidth, bottom - top);
+
+		gc.setFill(Color.BLUE);
+		double y = TOP_PADDING + (numFloors - elevator.getCurrentFloor() - 1) * floorHeight;
+		gc.fillRect(x + 2, y + 2, shaftWidth - 4, floorHeight - 4);
+
+		gc.setFill(Color.WHITE);
+		String passText = "#P: " + elevator.getNumberOfPassengers();
+		gc.fillText(passText,
+			x + shaftWidth / 2 - textMetrics.getWidth(passText) / 2,
+			y + 2 + textMetrics.getHeight());
+
+		if (elevator.getDestinationFloor() != -1) {
+			String destText = "Dst: " + elevator.getDestinationFloor();
+			gc.fillText(destText,
+				x + shaftWidth / 2 - textMetrics.getWidth(destText) / 2,
+				y + floorHeight - 4);
+		}
+
+		gc.restore();
+	}
+
+	/**
+	 * Repaints the passengers waiting on the floor, with their destination floors above their heads
+	 */
+	private void drawWaitingPassengers(int floor, FloorView view) {
+		GraphicsContext gc = foreground.getGraphicsContext2D();
+		double y = getFloorY(floor);
+		double left = getShaftX(numElevators) + 1;
+
+		gc.save();
+		clip(gc, left, y - floorHeight, foreground.getWidth() - left, floorHeight);
+		gc.setStroke(Color.BLACK);
+		gc.setFill(Color.BLACK);
+
+		double x = left + 4;
+		for (int i = 0; i < view.getNumberOfWaitingPassengers(); ++i) {
+			if (x > foreground.getWidth()) {
+				break;
+			}
+
+			double headY = y - HEAD_WIDTH - 2;
+			gc.strokeOval(x, headY, HEAD_WIDTH, HEAD_WIDTH);
+			double eyeY = headY + HEAD_WIDTH / 2 - 4;
+			gc.strokeOval(x + HEAD_WIDTH / 2 - EYE_X_OFFSET - EYE_WIDTH, eyeY, EYE_WIDTH, EYE_WIDTH);
+			gc.strokeOval(x + HEAD_WIDTH / 2 + EYE_X_OFFSET,             eyeY, EYE_WIDTH, EYE_WIDTH);
+
+			String destText = String.valueOf(view.getDestinationFloor(i));
+			gc.fillText(destText, x + HEAD_WIDTH / 2 - textMetrics.getWidth(destText) / 2, headY - 4);
+
+			x += HEAD_WIDTH * 2 + 2;
+		}
+
+		gc.restore();
+	}
+
+	/**
+	 * Clears the area and limits drawing to it until the graphics context is restored
+	 */
+	private static void clip(GraphicsContext gc, double x, double y, double width, double height) {
+		gc.clearRect(x, y, width, height);
+		gc.beginPath();
+		gc.rect(x, y, width, height);
+		gc.clip();
+	}
+
+	/**
+	 * Y coordinate of the floor line of the floor, which is also the ceiling of the floor below
+	 */
+	private double getFloorY(int floor) {
+		return TOP_PADDING + (numFloors - floor) * floorHeight;
+	}
+
+	private double getShaftX(int shaft) {
+		return ELEVATOR_LEFT_PADDING + shaft * shaftWidth;
+	}
+}
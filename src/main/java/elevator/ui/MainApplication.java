@@ -1,17 +1,16 @@
 package elevator.ui;
 
 import java.time.Duration;
-import java.util.List;
 import java.util.Random;
 
-import elevator.model.Elevator;
-import elevator.model.Floor;
-import elevator.model.Passenger;
+import elevator.model.BuildingView;
 import elevator.simulation.ElevatorSimulator;
+import elevator.simulation.SimulationEngine;
 import elevator.simulation.SimulationParameters;
 import elevator.strategies.elevator.NearestHeadingTowardsElevatorStrategy;
 import elevator.strategies.embarkation.SimpleEmbarkationStrategy;
 import elevator.strategies.queue.ByOrderFloorQueueMergeStrategy;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
@@ -21,7 +20,6 @@ import javafx.collections.ObservableList;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
@@ -31,8 +29,6 @@ import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
-import javafx.scene.text.Font;
-import javafx.scene.text.Text;
 import javafx.stage.Stage;
 
 public class MainApplication extends Application {
@@ -47,11 +43,14 @@ public class MainApplication extends Application {
 	private TextField seed;
 	private Button runButton;
 	private Button resetButton;
-	private Canvas canvas;
+	private BuildingRenderer renderer;
 	private TextField numPassengers;
 
+	// Simulated state is handed to the FX thread at about the rate frames are drawn
+	private static final Duration VIEW_INTERVAL = Duration.ofMillis(15);
+
 	private Thread simulationThread;
-	private ElevatorSimulator simulator;
+	private volatile ElevatorSimulator simulator;
 	private SimulationParameters params;
 	
 	
@@ -60,8 +59,11 @@ public class MainApplication extends Application {
 		primaryStage.setTitle("Elevator simulator");
 		AnchorPane anchorPane = new AnchorPane();
 		
-		canvas = new Canvas(1024, 768);
-		anchorPane.getChildren().add(canvas);
+		// Static geometry is drawn on the background, elevators and passengers on the foreground 
+		Canvas background = new Canvas(1024, 768);
+		Canvas foreground = new Canvas(1024, 768);
+		anchorPane.getChildren().addAll(background, foreground);
+		renderer = new BuildingRenderer(background, foreground);
 
 		VBox vbox = new VBox();
 		anchorPane.getChildren().add(vbox);
@@ -108,17 +110,12 @@ public class MainApplication extends Application {
 		primaryStage.setScene(s);
         primaryStage.show();
         
-        Thread redrawThread = new Thread(() -> {
-        	while (true) {
-        		try {
-					Thread.sleep(10);
-				} catch (InterruptedException e) {
-				}
-        		Platform.runLater(this::redraw);
+        new AnimationTimer() {
+        	@Override
+        	public void handle(long now) {
+        		redraw();
         	}
-        });
-        redrawThread.setDaemon(true);
-        redrawThread.start();
+        }.start();
 	}
 	
 	private void setIntegerOnly(TextField textField) {
@@ -178,6 +175,9 @@ public class MainApplication extends Application {
 			.withEmbarkationStrategy(new SimpleEmbarkationStrategy())
 			.withFloorQueueMergeStrategy(new ByOrderFloorQueueMergeStrategy())
 			.withTimeFactor(2)
+			.withEngine(SimulationEngine.REAL_TIME)
+			.withJmx(true)
+			.withViewInterval(VIEW_INTERVAL)
 			.withTimeout(Duration.ofMinutes(10));
 		
 		simulationThread = new Thread(() -> runSimulation(params), "SimulationThread");
@@ -213,125 +213,19 @@ public class MainApplication extends Application {
 	}
 	
 	
+	/**
+	 * Called on every pulse of the FX thread, so frames never queue up. Draws the latest view published by the 
+	 * simulator, without touching the model.
+	 */
 	private void redraw() {
-		GraphicsContext gc = canvas.getGraphicsContext2D();
-		gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
-		
-		if (!isRunning() || simulator == null) {
+		ElevatorSimulator simulator = this.simulator;
+		BuildingView view = simulator == null ? null : simulator.getView();
+		if (!isRunning() || view == null) {
+			renderer.clear();
 			return;
 		}
 		
-		List<Elevator> elevators = simulator.getEnvironment().getElevators();
-		List<Floor> floors = simulator.getEnvironment().getFloors();
-		
-		final double topPadding = 50;
-		final double leftPadding = 10;
-		final double rightPadding = 200;
-		final double passengerPadding = 200;
-		final double elevatorLeftPadding = 150;
-		final double elevatorRightPadding = rightPadding + passengerPadding;
-		final double bottomPadding = 10;
-		
-		double floorHeight = (canvas.getHeight() - topPadding - bottomPadding) / floors.size();
-		double elevatorShaftWidth = (canvas.getWidth() - elevatorLeftPadding - elevatorRightPadding) / elevators.size();
-		if (elevatorShaftWidth > floorHeight / 1.5) {
-			elevatorShaftWidth = floorHeight / 1.5;
-		}
-				
-		//
-		// Draw ceilings and floors and floor numbers
-		//
-		gc.setStroke(Color.BLACK);
-		for (int i = floors.size(); i >= 0; --i) {
-			double y = topPadding + (floors.size() - i) * floorHeight;
-			gc.strokeLine(leftPadding, y, canvas.getWidth() - rightPadding, y);
-			
-			if (i < floors.size()) {
-				Floor floor = floors.get(i);
-				gc.fillText(floor.getName(), 20, y - floorHeight / 2 + getTextHeight(floor.getName(), gc.getFont()) / 2);
-
-				// Draw passengers
-				double headWidth = 20;
-				double eyeWidth = 4;
-				double eyeXOffset = 2;
-
-				double x = elevatorLeftPadding + elevators.size() * elevatorShaftWidth + 5;
-				for (Passenger passenger : floor.getPassengers()) {
-					
-					double headY = y - headWidth - 2;
-					gc.strokeOval(x, headY, headWidth, headWidth);
-					double eyeY = headY + headWidth / 2 - 4;
-					gc.strokeOval(x + headWidth / 2 - eyeXOffset - eyeWidth, eyeY, eyeWidth, eyeWidth);
-					gc.strokeOval(x + headWidth / 2 + eyeXOffset,            eyeY, eyeWidth, eyeWidth);
-					
-					// Draw destination floor above the head
-					String destText = String.valueOf(passenger.getDestinationFloor()); 
-					gc.fillText(
-						destText, 
-						x + headWidth / 2 - getTextWidth(destText, gc.getFont()) / 2, 
-						headY - 4);
-				
-					x += headWidth * 2 + 2;
-				}
-			}
-			
-		}
-		
-		//
-		// Draw elevator shafts
-		//
-		for (int i=0; i <= elevators.size(); ++i) {
-			
-			double x = elevatorLeftPadding + i * elevatorShaftWidth;
-			gc.strokeLine(x, topPadding, x, canvas.getHeight() - bottomPadding);
-
-			if (i < elevators.size()) {
-				Elevator elevator = elevators.get(i);
-				// Elevator name
-				gc.fillText(elevator.getName(), x + elevatorShaftWidth / 2 - getTextWidth(elevator.getName(), gc.getFont()) / 2, 20);
-				
-				// Draw elevator
-				gc.setFill(Color.BLUE);
-				double y = topPadding + (floors.size() - elevator.getCurrentFloor() - 1) * floorHeight;
-				gc.fillRect(
-					x + 2, 
-					y + 2, 
-					elevatorShaftWidth - 4, 
-					floorHeight - 4);
-				
-				// Draw number of passengers
-				gc.setFill(Color.WHITE);
-				String passText = "#P: " + elevator.getNumberOfPassengers();
-				gc.fillText(passText, 
-					x + elevatorShaftWidth / 2 - getTextWidth(passText, gc.getFont()) / 2, 
-					y + 2 + getTextHeight(passText, gc.getFont()));
-
-				// Draw destination floor
-				if (elevator.getDestinationFloor() != -1) {
-					String destText = "Dst: " + elevator.getDestinationFloor();
-					gc.fillText(destText, 
-						x + elevatorShaftWidth / 2 - getTextWidth(passText, gc.getFont()) / 2, 
-						y + floorHeight - 4);
-				}
-				
-				gc.setFill(Color.BLACK);
-			}
-			
-		}
-	}
-
-	private double getTextHeight(String text, Font font) {
-		Text _text = new Text();
-		_text.setText(text);
-		_text.setFont(font);
-		return _text.getBoundsInLocal().getHeight();
-	}
-
-	private double getTextWidth(String text, Font font) {
-		Text _text = new Text();
-		_text.setText(text);
-		_text.setFont(font);
-		return _text.getBoundsInLocal().getWidth();
+		renderer.render(view);
 	}
 
 }
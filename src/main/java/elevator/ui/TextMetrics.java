@@ -0,0 +1,56 @@
+package elevator.ui;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+
+/**
+ * Measures text with one reusable Text node and caches the widths, since the labels drawn are few and repeat
+ * from frame to frame. Only used on the FX thread.
+ */
+class TextMetrics {
+
+	private static final int MAX_CACHED_WIDTHS = 4096;
+
+	private Text text = new Text();
+	private Font font;
+	private double height;
+	private Map<String, Double> widths = new HashMap<>();
+
+	TextMetrics(Font font) {
+		setFont(font);
+	}
+
+	void setFont(Font font) {
+		if (font.equals(this.font)) {
+			return;
+		}
+		this.font = font;
+		text.setFont(font);
+		text.setText("0");
+		height = text.getBoundsInLocal().getHeight();
+		widths.clear();
+	}
+
+	/**
+	 * Height of a line of text, the same for all text in the font
+	 */
+	double getHeight() {
+		return height;
+	}
+
+	double getWidth(String s) {
+		Double width = widths.get(s);
+		if (width == null) {
+			if (widths.size() >= MAX_CACHED_WIDTHS) {
+				widths.clear();
+			}
+			text.setText(s);
+			width = text.getBoundsInLocal().getWidth();
+			widths.put(s, width);
+		}
+		return width;
+	}
+}